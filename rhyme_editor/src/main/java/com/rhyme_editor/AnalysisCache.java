@@ -0,0 +1,258 @@
+package com.rhyme_editor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * AnalysisCache - Persistent on-disk cache of rhyme analysis results
+ *
+ * Text is split into content-defined chunks (see {@link TextChunker}) and the
+ * ending table of every chunk is stored in a small binary file named after the
+ * chunk's content hash. A second entry keyed by the hash of the whole text holds
+ * the merged table, so reopening an unchanged file needs no analysis at
+ * all, and reopening an edited one only re-analyses the chunks that changed.
+ *
+ * Each entry carries a CRC-32 of its payload, so a truncated or damaged file
+ * is discarded rather than read as a wrong table. The directory is bounded in
+ * size; least recently used entries are evicted after every write.
+ * Recently used chunk tables are also kept in memory, so re-analysing a text
+ * after a few edits (such as a reload of a file changed on disk) neither reads
+ * nor analyses the chunks that stayed the same.
+ */
+public class AnalysisCache {
+
+    private static final int MAGIC = 0x52484d43; // "RHMC"
+    private static final int FORMAT_VERSION = 2;
+    private static final String CHUNK_SUFFIX = ".rgc";
+    private static final String FILE_SUFFIX = ".rgf";
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final int MAX_MEMORY_CHUNKS = 2048;
+
+    private final RhymeDetector rhymeDetector;
+    private final File directory;
+    private final long maxBytes;
+    private final boolean available;
+    // Keyed by chunk hash; the value holds the length too, as on disk
+    private final Map<Long, ChunkTable> memory = Collections.synchronizedMap(
+        new LinkedHashMap<Long, ChunkTable>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ChunkTable> eldest) {
+                return size() > MAX_MEMORY_CHUNKS;
+            }
+        });
+
+    public AnalysisCache(RhymeDetector rhymeDetector) {
+        this(rhymeDetector,
+             new File(System.getProperty("user.home"), ".rhyme_editor" + File.separator + "cache"),
+             DEFAULT_MAX_BYTES);
+    }
+
+    public AnalysisCache(RhymeDetector rhymeDetector, File directory, long maxBytes) {
+        this.rhymeDetector = rhymeDetector;
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.available = directory.isDirectory() || directory.mkdirs();
+    }
+
+    /**
+     * Returns the ending table for the text (see {@link RhymeDetector#collectEndings}),
+     * reusing cached results where possible. Falls back to plain analysis if the
+     * cache directory is unusable.
+     */
+    public Map<String, List<String>> collectEndings(String text) {
+        if (!available) {
+            return rhymeDetector.collectEndings(text);
+        }
+
+        long textHash = ContentHash.of(text);
+        File fileEntry = entryFile(textHash, text.length(), FILE_SUFFIX);
+        Map<String, List<String>> endings = readEntry(fileEntry);
+        if (endings != null) {
+            return endings;
+        }
+
+        endings = new LinkedHashMap<>();
+        for (String chunk : TextChunker.split(text)) {
+            long chunkHash = ContentHash.of(chunk);
+            ChunkTable cached = memory.get(chunkHash);
+            Map<String, List<String>> chunkEndings = cached != null && cached.length == chunk.length()
+                ? cached.endings : null;
+            if (chunkEndings == null) {
+                File chunkEntry = entryFile(chunkHash, chunk.length(), CHUNK_SUFFIX);
+                chunkEndings = readEntry(chunkEntry);
+                if (chunkEndings == null) {
+                    chunkEndings = rhymeDetector.collectEndings(chunk);
+                    writeEntry(chunkEntry, chunkEndings);
+                }
+                memory.put(chunkHash, new ChunkTable(chunk.length(), chunkEndings));
+            }
+            // Merging copies, so the cached table is never modified
+            rhymeDetector.mergeEndings(endings, chunkEndings);
+        }
+
+        writeEntry(fileEntry, endings);
+        evictIfNeeded();
+        return endings;
+    }
+
+    private static final class ChunkTable {
+        final int length;
+        final Map<String, List<String>> endings;
+
+        ChunkTable(int length, Map<String, List<String>> endings) {
+            this.length = length;
+            this.endings = endings;
+        }
+    }
+
+    private File entryFile(long hash, int length, String suffix) {
+        return new File(directory, ContentHash.toHex(hash) + "-" + Integer.toHexString(length) + suffix);
+    }
+
+    /**
+     * Reads and validates an entry. The file name already identifies the
+     * content, so validation checks the format and the payload checksum.
+     * Returns null on a miss or a damaged file.
+     */
+    private Map<String, List<String>> readEntry(File file) {
+        if (!file.isFile()) return null;
+
+        byte[] payload;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC
+                    || in.readInt() != FORMAT_VERSION
+                    || in.readInt() != RhymeDetector.CONFIG_VERSION) {
+                file.delete();
+                return null;
+            }
+            int size = in.readInt();
+            long checksum = in.readLong();
+            if (size < 0 || size > file.length()) {
+                file.delete();
+                return null;
+            }
+            payload = new byte[size];
+            in.readFully(payload);
+            if (checksum(payload) != checksum || in.read() != -1) {
+                file.delete();
+                return null;
+            }
+        } catch (IOException e) {
+            file.delete();
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int endingCount = in.readInt();
+            Map<String, List<String>> table = new LinkedHashMap<>(endingCount * 2);
+            for (int i = 0; i < endingCount; i++) {
+                String ending = in.readUTF();
+                int wordCount = in.readInt();
+                List<String> words = new ArrayList<>(wordCount);
+                for (int j = 0; j < wordCount; j++) {
+                    words.add(in.readUTF());
+                }
+                table.put(ending, words);
+            }
+
+            // Mark as recently used for LRU eviction
+            file.setLastModified(System.currentTimeMillis());
+            return table;
+        } catch (IOException e) {
+            file.delete();
+            return null;
+        }
+    }
+
+    private void writeEntry(File file, Map<String, List<String>> table) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeInt(table.size());
+            for (Map.Entry<String, List<String>> entry : table.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (String word : entry.getValue()) {
+                    out.writeUTF(word);
+                }
+            }
+        } catch (IOException e) {
+            return;
+        }
+        byte[] bytes = payload.toByteArray();
+
+        // Per-thread temp name: several documents may write the same chunk at once
+        File temp = new File(directory, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(RhymeDetector.CONFIG_VERSION);
+            out.writeInt(bytes.length);
+            out.writeLong(checksum(bytes));
+            out.write(bytes);
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+
+        try {
+            Files.move(temp.toPath(), file.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            temp.delete();
+        }
+    }
+
+    private static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    /**
+     * Deletes least recently used entries until the cache is back under 80% of its budget.
+     */
+    private void evictIfNeeded() {
+        File[] entries = directory.listFiles((dir, name) ->
+            name.endsWith(CHUNK_SUFFIX) || name.endsWith(FILE_SUFFIX));
+        if (entries == null) return;
+
+        long total = 0;
+        Map<File, Long> lastUsed = new HashMap<>();
+        for (File entry : entries) {
+            total += entry.length();
+            lastUsed.put(entry, entry.lastModified());
+        }
+        if (total <= maxBytes) return;
+
+        Arrays.sort(entries, Comparator.comparingLong(lastUsed::get));
+        long target = maxBytes * 8 / 10;
+        for (File entry : entries) {
+            if (total <= target) break;
+            long size = entry.length();
+            if (entry.delete()) {
+                total -= size;
+            }
+        }
+    }
+}
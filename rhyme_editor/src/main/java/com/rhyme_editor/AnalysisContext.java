@@ -0,0 +1,122 @@
+package com.rhyme_editor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AnalysisContext - Analysis resources shared by every open document
+ *
+ * One rhyme detector, one analysis cache and bounded pools of analysis
+ * threads serve all editors, instead of each document bringing its own. Large
+ * texts are split across a fork/join pool of the same size rather than the
+ * JVM-wide common pool.
+ *
+ * It also keeps idle (background) editors within a memory budget. Idle
+ * editors do not highlight; once their documents and the analysis state they
+ * still hold add up to more than the budget, the least recently used ones are
+ * compacted. A compacted
+ * editor is re-analysed from the cache when it becomes active again.
+ */
+public class AnalysisContext {
+
+    private static final long DEFAULT_IDLE_BUDGET_BYTES = 32L * 1024 * 1024;
+
+    private final ForkJoinPool analysisPool;
+    private final RhymeDetector rhymeDetector;
+    private final AnalysisCache analysisCache;
+    private final ExecutorService executor;
+    private final long idleBudgetBytes;
+    // Idle editors, least recently active first; EDT only
+    private final Set<EditorPane> idleEditors = new LinkedHashSet<>();
+
+    public AnalysisContext() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+             Math.min(DEFAULT_IDLE_BUDGET_BYTES, Runtime.getRuntime().maxMemory() / 8));
+    }
+
+    public AnalysisContext(int threads, long idleBudgetBytes) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "rhyme-analysis-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Large texts are split across this pool; common pool workers are left
+        // to the rest of the application
+        AtomicInteger splitCount = new AtomicInteger();
+        this.analysisPool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("rhyme-split-" + splitCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.rhymeDetector = new RhymeDetector(analysisPool);
+        this.analysisCache = new AnalysisCache(rhymeDetector);
+        this.idleBudgetBytes = idleBudgetBytes;
+    }
+
+    public RhymeDetector getRhymeDetector() {
+        return rhymeDetector;
+    }
+
+    public AnalysisCache getAnalysisCache() {
+        return analysisCache;
+    }
+
+    /**
+     * Runs background analysis work; SwingWorkers can be passed directly.
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Brings an editor to the front: it highlights again, rehydrating its
+     * analysis state if it was compacted.
+     */
+    public void markActive(EditorPane editor) {
+        idleEditors.remove(editor);
+        editor.resumeHighlighting();
+    }
+
+    /**
+     * Sends an editor to the background and compacts idle editors, least
+     * recently active first, until their state fits the budget.
+     */
+    public void markIdle(EditorPane editor) {
+        editor.suspendHighlighting();
+        idleEditors.remove(editor);
+        idleEditors.add(editor);
+        enforceBudget();
+    }
+
+    public void release(EditorPane editor) {
+        idleEditors.remove(editor);
+    }
+
+    private void enforceBudget() {
+        long total = 0;
+        List<EditorPane> holding = new ArrayList<>();
+        for (EditorPane editor : idleEditors) {
+            total += editor.estimateAnalysisBytes();
+            if (!editor.isCompacted()) {
+                holding.add(editor);
+            }
+        }
+
+        // Compacting frees the analysis state; the text stays
+        for (EditorPane editor : holding) {
+            if (total <= idleBudgetBytes) break;
+            long before = editor.estimateAnalysisBytes();
+            editor.compact();
+            total -= before - editor.estimateAnalysisBytes();
+        }
+    }
+}
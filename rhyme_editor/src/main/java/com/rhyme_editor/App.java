@@ -1,9 +1,40 @@
 package com.rhyme_editor;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
 public class App {
     public static void main(String[] args) throws Exception {
+        // Batch mode: --export <html|rtf> <input> <output>
+        if (args.length > 0 && args[0].equals("--export")) {
+            if (args.length != 4) {
+                System.err.println("Usage: --export <html|rtf> <input> <output>");
+                System.exit(2);
+            }
+            HighlightExporter.Format format = HighlightExporter.Format.valueOf(args[1].toUpperCase());
+            HighlightExporter.exportFile(Paths.get(args[2]), Paths.get(args[3]), format);
+            return;
+        }
+
+        // Headless service: --serve [port] [maxInFlight]
+        if (args.length > 0 && args[0].equals("--serve")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : RhymeServer.DEFAULT_PORT;
+            int maxInFlight = args.length > 2 ? Integer.parseInt(args[2])
+                                              : Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+            RhymeServer server = new RhymeServer(port, maxInFlight);
+            server.start();
+            System.out.println("Rhyme server listening on http://127.0.0.1:" + server.getPort());
+            return;
+        }
+
+        // Latency harness: --replay <trace> [speed|max]
+        if (args.length > 0 && args[0].equals("--replay")) {
+            SessionReplay.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         // Set system look and feel for better native appearance
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -0,0 +1,194 @@
+package com.rhyme_editor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * AsciiScanner - Table-driven tokenizer and case folding for mostly-ASCII text
+ *
+ * Replaces per-character regex matching and locale-aware lower-casing on the
+ * rhyme pipeline's hot paths. ASCII characters are classified with a single
+ * table lookup; anything above 0x7F takes the general {@link Character} path.
+ */
+public final class AsciiScanner {
+
+    static final byte OTHER = 0;
+    static final byte UPPER = 1;
+    static final byte LOWER = 2;
+    static final byte DIGIT = 3;
+    static final byte APOSTROPHE = 4;
+    static final byte SPACE = 5;
+
+    private static final byte[] CLASSES = new byte[128];
+    // Longer apostrophe-joined runs are not searched for further word ends
+    private static final int MAX_WORD_LENGTH = 64;
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) CLASSES[c] = UPPER;
+        for (char c = 'a'; c <= 'z'; c++) CLASSES[c] = LOWER;
+        for (char c = '0'; c <= '9'; c++) CLASSES[c] = DIGIT;
+        CLASSES['\''] = APOSTROPHE;
+        // Same set as the regex class \s
+        for (char c : new char[] { ' ', '\t', '\n', '\u000B', '\f', '\r' }) CLASSES[c] = SPACE;
+    }
+
+    private AsciiScanner() {
+    }
+
+    static byte classify(char c) {
+        return c < 128 ? CLASSES[c] : OTHER;
+    }
+
+    /**
+     * Tokenizes the way the rhyme detector always has: characters other than
+     * ASCII letters, apostrophes and whitespace are dropped (joining the pieces
+     * around them), letters are lower-cased, and the result is split on
+     * whitespace. Returns the distinct words of at least {@code minLength} chars
+     * in order of first appearance.
+     */
+    public static String[] distinctWords(String text, int minLength) {
+        Set<String> words = new LinkedHashSet<>();
+        char[] token = new char[32];
+        int tokenLength = 0;
+        int length = text.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            byte type = classify(c);
+            switch (type) {
+                case UPPER:
+                case LOWER:
+                case APOSTROPHE:
+                    if (type == UPPER) c |= 0x20;
+                    if (tokenLength == token.length) {
+                        char[] grown = new char[tokenLength * 2];
+                        System.arraycopy(token, 0, grown, 0, tokenLength);
+                        token = grown;
+                    }
+                    token[tokenLength++] = c;
+                    break;
+                case SPACE:
+                    if (tokenLength >= minLength) {
+                        words.add(new String(token, 0, tokenLength));
+                    }
+                    tokenLength = 0;
+                    break;
+                default:
+                    // Digits, punctuation and non-ASCII are removed in place
+                    break;
+            }
+        }
+        if (tokenLength >= minLength) {
+            words.add(new String(token, 0, tokenLength));
+        }
+
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * Reports every word {@link #distinctWords} would produce, with repeats, as
+     * it occurs in the text. {@code start} and {@code end} span the token from
+     * its first to its last kept character.
+     */
+    public static void forEachWord(String text, int minLength, WordMatch consumer) {
+        StringBuilder token = new StringBuilder(32);
+        int start = -1;
+        int end = -1;
+        int length = text.length();
+
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            byte type = classify(c);
+            switch (type) {
+                case UPPER:
+                case LOWER:
+                case APOSTROPHE:
+                    if (type == UPPER) c |= 0x20;
+                    if (token.length() == 0) start = i;
+                    token.append(c);
+                    end = i + 1;
+                    break;
+                case SPACE:
+                    if (token.length() >= minLength) {
+                        consumer.accept(start, end, token.toString());
+                    }
+                    token.setLength(0);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Lower-cases a string so that the result always has the same length (and
+     * offsets) as the input. The JDK's bulk lower-casing is used whenever it
+     * preserves length, which is always the case for Latin-1 text; otherwise
+     * chars are folded one at a time.
+     */
+    public static String foldCase(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        if (lower.length() == text.length()) return lower;
+
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Letters and digits; the boundary test used when matching whole words.
+     */
+    public static boolean isLetterOrDigit(char c) {
+        if (c < 128) {
+            byte type = CLASSES[c];
+            return type == UPPER || type == LOWER || type == DIGIT;
+        }
+        return Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * Receives word occurrences found by {@link #findWords}.
+     */
+    public interface WordMatch {
+        void accept(int start, int end, String word);
+    }
+
+    /**
+     * Finds every whole-word occurrence of any of {@code words} in already
+     * case-folded text in a single pass. An occurrence must not touch a letter
+     * or digit on either side, so "fire" matches in "fire's" but not "fired".
+     */
+    public static void findWords(String foldedText, Set<String> words, WordMatch consumer) {
+        int length = foldedText.length();
+        boolean previousWordChar = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = foldedText.charAt(i);
+            boolean startsHere = !previousWordChar && (isLetterOrDigit(c) || c == '\'');
+            previousWordChar = isLetterOrDigit(c);
+            if (!startsHere) continue;
+
+            // Every boundary inside this run of letters and apostrophes is a
+            // possible end; usually there is only the run's own end
+            int end = i;
+            while (true) {
+                while (end < length && isLetterOrDigit(foldedText.charAt(end))) {
+                    end++;
+                }
+                if (end > i) {
+                    String candidate = foldedText.substring(i, end);
+                    if (words.contains(candidate)) {
+                        consumer.accept(i, end, candidate);
+                    }
+                }
+                if (end == length || foldedText.charAt(end) != '\'' || end - i > MAX_WORD_LENGTH) break;
+                end++;
+            }
+        }
+    }
+}
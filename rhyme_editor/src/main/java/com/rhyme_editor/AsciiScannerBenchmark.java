@@ -0,0 +1,142 @@
+package com.rhyme_editor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * AsciiScannerBenchmark - Times the scanner against the code it replaced
+ *
+ * Usage: AsciiScannerBenchmark [kilobytes] [matchWords] [rounds]
+ *
+ * Builds a lyrics-like text (1024 KB by default) from a 5000-word vocabulary
+ * with mixed case, contractions, digits and punctuation, then times two steps
+ * both ways:
+ *
+ *   tokenize - RhymeDetector's old replaceAll/toLowerCase/split/distinct chain
+ *              against {@link AsciiScanner#distinctWords}
+ *   match    - EditorPane's old per-word toLowerCase, indexOf and
+ *              Character.isLetterOrDigit loop against one
+ *              {@link AsciiScanner#foldCase} and {@link AsciiScanner#findWords}
+ *              for matchWords words (100 by default)
+ *
+ * Each step is warmed up first, with both results checked to be equal, and
+ * then averaged over the given rounds.
+ */
+public class AsciiScannerBenchmark {
+
+    private static final int VOCABULARY_SIZE = 5000;
+    private static final String SEPARATORS = "      \n,.!?;:-\"";
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int kilobytes = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int matchWords = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        Random random = new Random(42);
+        String[] vocabulary = vocabulary(random);
+        String text = text(random, vocabulary, kilobytes * 1024);
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < matchWords) {
+            words.add(AsciiScanner.foldCase(vocabulary[random.nextInt(vocabulary.length)]));
+        }
+        System.out.printf("Text: %d chars, %d words to match%n", text.length(), words.size());
+
+        compare("tokenize", rounds,
+                () -> Arrays.asList(regexWords(text)),
+                () -> Arrays.asList(AsciiScanner.distinctWords(text, RhymeDetector.MIN_WORD_LENGTH)));
+        compare("match", rounds,
+                () -> characterMatches(text, words),
+                () -> scannerMatches(text, words));
+    }
+
+    private static String[] vocabulary(Random random) {
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < vocabulary.length; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 3 + random.nextInt(7);
+            for (int j = 0; j < length; j++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            switch (random.nextInt(10)) {
+                case 0: word.setCharAt(0, Character.toUpperCase(word.charAt(0))); break;
+                case 1: word.append("'s"); break;
+                case 2: word.append(random.nextInt(10)); break;
+                default: break;
+            }
+            vocabulary[i] = word.toString();
+        }
+        return vocabulary;
+    }
+
+    private static String text(Random random, String[] vocabulary, int length) {
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(vocabulary[random.nextInt(vocabulary.length)]);
+            text.append(SEPARATORS.charAt(random.nextInt(SEPARATORS.length())));
+        }
+        return text.toString();
+    }
+
+    /** RhymeDetector.cleanWords before the scanner. */
+    private static String[] regexWords(String text) {
+        String cleaned = text.replaceAll("[^a-zA-Z'\\s]", "").toLowerCase();
+        return Arrays.stream(cleaned.split("\\s+"))
+                     .filter(word -> !word.isEmpty() && word.length() >= RhymeDetector.MIN_WORD_LENGTH)
+                     .distinct()
+                     .toArray(String[]::new);
+    }
+
+    /** EditorPane.highlightWord before the scanner, once per word. */
+    private static List<Integer> characterMatches(String text, Set<String> words) {
+        List<Integer> starts = new ArrayList<>();
+        for (String word : words) {
+            String lowerText = text.toLowerCase();
+            String lowerWord = word.toLowerCase();
+            int index = 0;
+            while ((index = lowerText.indexOf(lowerWord, index)) != -1) {
+                boolean validStart = index == 0 || !Character.isLetterOrDigit(lowerText.charAt(index - 1));
+                boolean validEnd = index + word.length() >= lowerText.length()
+                    || !Character.isLetterOrDigit(lowerText.charAt(index + word.length()));
+                if (validStart && validEnd) {
+                    starts.add(index);
+                }
+                index++;
+            }
+        }
+        starts.sort(null);
+        return starts;
+    }
+
+    private static List<Integer> scannerMatches(String text, Set<String> words) {
+        List<Integer> starts = new ArrayList<>();
+        AsciiScanner.findWords(AsciiScanner.foldCase(text), words, (start, end, word) -> starts.add(start));
+        starts.sort(null);
+        return starts;
+    }
+
+    private static <T> void compare(String step, int rounds, Supplier<T> old, Supplier<T> scanner) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            if (!old.get().equals(scanner.get())) {
+                throw new IllegalStateException(step + ": scanner result differs from the old path");
+            }
+        }
+        double oldMs = time(rounds, old);
+        double scannerMs = time(rounds, scanner);
+        System.out.printf("%-10s old %9.1f ms   scanner %9.1f ms   speedup %.1fx%n",
+                          step, oldMs, scannerMs, oldMs / scannerMs);
+    }
+
+    private static double time(int rounds, Supplier<?> step) {
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            step.get();
+        }
+        return (System.nanoTime() - start) / 1e6 / rounds;
+    }
+}
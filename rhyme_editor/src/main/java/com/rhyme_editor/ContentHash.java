@@ -0,0 +1,36 @@
+package com.rhyme_editor;
+
+/**
+ * ContentHash - Fast 64-bit FNV-1a hash over characters
+ *
+ * Used to key cached analysis results by the text they were computed from.
+ */
+public final class ContentHash {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private ContentHash() {
+    }
+
+    public static long of(CharSequence text) {
+        return of(text, 0, text.length());
+    }
+
+    public static long of(CharSequence text, int start, int end) {
+        long hash = OFFSET_BASIS;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            hash ^= c & 0xff;
+            hash *= PRIME;
+            hash ^= c >>> 8;
+            hash *= PRIME;
+        }
+        return hash;
+    }
+
+    public static String toHex(long hash) {
+        String hex = Long.toHexString(hash);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+}
@@ -7,28 +7,81 @@ import java.awt.*;
 import java.io.File;
 import java.util.*;
 import java.util.List;
+import java.util.function.LongConsumer;
 import javax.swing.Timer;
 
 public class EditorPane extends JTextPane implements DocumentListener {
 
     private final JScrollPane scrollPane;
+    private final AnalysisContext analysisContext;
     private final RhymeDetector rhymeDetector;
+    private final AnalysisCache analysisCache;
+    private final RhymeIndex rhymeIndex;
+    private final RhymeSuggestionPopup suggestionPopup;
+    private final SyllableCounter syllableCounter;
+    private final RhymeSchemeAnalyzer schemeAnalyzer;
     private boolean highlightingEnabled = true;
+    // Background tab: passes are deferred until it is active again
+    private boolean suspended = false;
+    private boolean suspendedPassPending = false;
+    // Being exported: nothing may change the document, see beginExport()
+    private boolean exporting = false;
+    // Rest of a paint that was stopped by beginExport()
+    private Runnable parkedPaint;
+    // Analysis state was dropped to save memory; the next pass rebuilds it
+    private volatile boolean compacted = false;
     private UndoManager undoManager;
     private Runnable textChangeListener;
+    private LongConsumer highlightListener;
     private Map<String, List<String>> currentRhymeGroups;
+    private final RhymeColorAllocator colorAllocator = new RhymeColorAllocator();
+    private List<AppliedRun> appliedRuns = new ArrayList<>();
     private Timer updateTimer;
+    private final HighlightScheduler highlightScheduler;
     private volatile boolean isUpdating = false;
+    // Set when a pass is asked for while one is still running
+    private boolean passRequested = false;
+    private volatile boolean loadedTextPending = false;
+    private boolean bulkMutation = false;
+    private int highlightGeneration = 0;
+    private TextLineNumber lineNumber;
+    private final UndoableEditListener undoListener = e -> undoManager.addEdit(e.getEdit());
+
+    // Pastes at least this long go through runBulkMutation
+    static final int BULK_PASTE_THRESHOLD = 64 * 1024;
+    // Highlight edits applied per EDT slice
+    private static final int PAINT_SLICE = 2000;
+    // Rough retained sizes, used to keep idle documents within a memory budget
+    private static final int TEXT_CHAR_BYTES = 2;
+    // An element with its attribute set reference and start and end positions
+    private static final int ELEMENT_BYTES = 120;
+    private static final int APPLIED_RUN_BYTES = 200;
+    private static final int INDEXED_WORD_BYTES = 96;
+    private static final int CACHED_LINE_BYTES = 80;
+    private static final int CACHED_LABEL_BYTES = 64;
 
     public EditorPane() {
+        this(new AnalysisContext());
+    }
+
+    /**
+     * Creates an editor that shares its detector, cache and analysis threads
+     * with the other editors of the same context.
+     */
+    public EditorPane(AnalysisContext analysisContext) {
         super();
+        this.analysisContext = analysisContext;
         
         // Load custom font
         loadCustomFont();
         
         // Initialize components
         scrollPane = new JScrollPane(this);
-        rhymeDetector = new RhymeDetector();
+        rhymeDetector = analysisContext.getRhymeDetector();
+        analysisCache = analysisContext.getAnalysisCache();
+        rhymeIndex = new RhymeIndex(rhymeDetector);
+        syllableCounter = new SyllableCounter();
+        schemeAnalyzer = new RhymeSchemeAnalyzer(rhymeDetector);
         undoManager = new UndoManager();
         currentRhymeGroups = new HashMap<>();
 
@@ -36,14 +89,19 @@ public class EditorPane extends JTextPane implements DocumentListener {
         setupEditorStyle();
         
         // Setup undo/redo
-        getDocument().addUndoableEditListener(e -> undoManager.addEdit(e.getEdit()));
+        getDocument().addUndoableEditListener(undoListener);
 
-        // Setup debounced timer for highlighting (300ms delay)
-        updateTimer = new Timer(300, e -> performHighlighting());
+        // Setup debounced timer for highlighting; the delay adapts to measured cost
+        highlightScheduler = new HighlightScheduler();
+        updateTimer = new Timer(highlightScheduler.nextDelay(System.currentTimeMillis()),
+                                e -> performHighlighting());
         updateTimer.setRepeats(false);
 
         // Listen to text changes
         getDocument().addDocumentListener(this);
+
+        // Ctrl+Space suggests rhymes for the end of the previous line
+        suggestionPopup = new RhymeSuggestionPopup(this, rhymeIndex);
     }
 
     private void loadCustomFont() {
@@ -90,11 +148,19 @@ public class EditorPane extends JTextPane implements DocumentListener {
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
         scrollPane.getViewport().setBackground(new Color(252, 252, 252));
         
-        // Add line numbers (optional enhancement)
-        TextLineNumber lineNumber = new TextLineNumber(this);
+        // Add line numbers with syllable counts and per-stanza rhyme scheme letters
+        lineNumber = new TextLineNumber(this, schemeAnalyzer, syllableCounter);
         scrollPane.setRowHeaderView(lineNumber);
     }
 
+    /**
+     * Lines too long to wrap are shown unwrapped, see {@link LongLineEditorKit}.
+     */
+    @Override
+    protected EditorKit createDefaultEditorKit() {
+        return new LongLineEditorKit();
+    }
+
     public JScrollPane getScrollPane() {
         return scrollPane;
     }
@@ -104,7 +170,137 @@ public class EditorPane extends JTextPane implements DocumentListener {
     }
 
     public void setPaneText(String text) {
-        setText(text);
+        // Text loaded as a whole (e.g. an opened file) is worth looking up in
+        // the persistent cache, and is highlighted as soon as it is in
+        loadedTextPending = true;
+        runBulkMutation(() -> setText(text));
+    }
+
+    @Override
+    public void paste() {
+        String text = null;
+        try {
+            text = (String) getToolkit().getSystemClipboard()
+                .getData(java.awt.datatransfer.DataFlavor.stringFlavor);
+        } catch (Exception ex) {
+            // Not text, or the clipboard is busy; let the default handler decide
+        }
+
+        if (text != null && text.length() >= BULK_PASTE_THRESHOLD && isEditable()) {
+            String pasted = text;
+            runBulkMutation(() -> replaceSelection(pasted));
+        } else {
+            super.paste();
+        }
+    }
+
+    /**
+     * Runs a large document change with document listeners and highlighting
+     * suspended, then refreshes the gutter, status and highlights once. The
+     * change is recorded as a single undoable edit.
+     */
+    public void runBulkMutation(Runnable mutation) {
+        if (bulkMutation) {
+            mutation.run();
+            return;
+        }
+
+        bulkMutation = true;
+        Document doc = getDocument();
+        updateTimer.stop();
+        suggestionPopup.hide();
+        doc.removeDocumentListener(this);
+        lineNumber.suspend();
+        try {
+            recordAsOneEdit(mutation);
+        } finally {
+            doc.addDocumentListener(this);
+            lineNumber.resume();
+            bulkMutation = false;
+
+            notifyTextChange();
+            updateHighlighting();
+        }
+    }
+
+    /**
+     * Runs a change made of several document edits so that one undo reverts it.
+     */
+    private void recordAsOneEdit(Runnable change) {
+        Document doc = getDocument();
+        CompoundEdit compound = new CompoundEdit();
+        UndoableEditListener collector = e -> compound.addEdit(e.getEdit());
+        doc.removeUndoableEditListener(undoListener);
+        doc.addUndoableEditListener(collector);
+        try {
+            change.run();
+        } finally {
+            doc.removeUndoableEditListener(collector);
+            doc.addUndoableEditListener(undoListener);
+            compound.end();
+            if (compound.isSignificant()) {
+                undoManager.addEdit(compound);
+            }
+        }
+    }
+
+    /**
+     * Brings the document in line with text changed elsewhere, such as the file
+     * on disk, editing only the regions that differ so unchanged lines keep
+     * their highlights and gutter state. The diff is computed in the background
+     * and recomputed if the document changes meanwhile. One undo reverts the
+     * whole reload.
+     */
+    public void reloadText(String newText) {
+        String snapshot = getText();
+        analysisContext.execute(new SwingWorker<List<LineDiff.Edit>, Void>() {
+            @Override
+            protected List<LineDiff.Edit> doInBackground() {
+                return LineDiff.diff(snapshot, newText);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    List<LineDiff.Edit> edits = get();
+                    if (!getText().equals(snapshot)) {
+                        reloadText(newText);
+                    } else if (!edits.isEmpty()) {
+                        applyEdits(edits);
+                    }
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+        });
+    }
+
+    private void applyEdits(List<LineDiff.Edit> edits) {
+        AbstractDocument doc = (AbstractDocument) getDocument();
+        Runnable apply = () -> {
+            try {
+                // Last to first, so earlier offsets stay valid
+                for (int i = edits.size() - 1; i >= 0; i--) {
+                    LineDiff.Edit edit = edits.get(i);
+                    doc.replace(edit.offset, edit.length, edit.text, RhymeColorAllocator.defaultAttributes());
+                }
+            } catch (BadLocationException ex) {
+                ex.printStackTrace();
+            }
+        };
+
+        // Re-analysis goes through the chunk cache, so only changed chunks are analysed
+        loadedTextPending = true;
+
+        long changed = 0;
+        for (LineDiff.Edit edit : edits) {
+            changed += edit.length + edit.text.length();
+        }
+        if (changed >= BULK_PASTE_THRESHOLD) {
+            runBulkMutation(apply);
+        } else {
+            recordAsOneEdit(apply);
+        }
     }
 
     public void setHighlightingEnabled(boolean enabled) {
@@ -116,10 +312,114 @@ public class EditorPane extends JTextPane implements DocumentListener {
         }
     }
 
+    /**
+     * Stops highlighting while the editor is in the background. Edits made
+     * meanwhile are analysed when it is resumed.
+     */
+    public void suspendHighlighting() {
+        suspended = true;
+        if (updateTimer.isRunning()) {
+            updateTimer.stop();
+            suspendedPassPending = true;
+        }
+        suggestionPopup.hide();
+    }
+
+    public void resumeHighlighting() {
+        suspended = false;
+        if (compacted) {
+            compacted = false;
+            // Rebuild from the chunk cache rather than from scratch
+            loadedTextPending = true;
+            suspendedPassPending = true;
+        }
+        if (suspendedPassPending && !exporting) {
+            suspendedPassPending = false;
+            updateHighlighting();
+        }
+    }
+
+    /**
+     * Holds the document still while it is exported: typing is blocked and
+     * highlight passes neither start nor paint until {@link #endExport()}.
+     * A paint already under way stops before its next slice and carries on
+     * afterwards.
+     */
+    public void beginExport() {
+        exporting = true;
+        setEditable(false);
+        suggestionPopup.hide();
+    }
+
+    public void endExport() {
+        exporting = false;
+        setEditable(true);
+        if (parkedPaint != null) {
+            Runnable paint = parkedPaint;
+            parkedPaint = null;
+            paint.run();
+        }
+        if (suspendedPassPending && !suspended) {
+            suspendedPassPending = false;
+            updateHighlighting();
+        }
+    }
+
+    public boolean isExporting() {
+        return exporting;
+    }
+
+    public boolean isCompacted() {
+        return compacted;
+    }
+
+    /**
+     * Drops the highlights, index words and caches of a suspended editor.
+     * They are rebuilt when it is resumed.
+     */
+    public void compact() {
+        if (compacted || exporting) return;
+        clearHighlighting();
+        rhymeIndex.clearDocument();
+        syllableCounter.clearCache();
+        schemeAnalyzer.clearCache();
+        compacted = true;
+    }
+
+    /**
+     * Estimates the memory held by this editor: the document's text and
+     * element trees, plus its analysis state unless it has been compacted.
+     * Only the analysis state is freed by {@link #compact()}.
+     */
+    public long estimateAnalysisBytes() {
+        StyledDocument doc = getStyledDocument();
+        Element root = doc.getDefaultRootElement();
+        long elements = 1 + root.getElementCount();
+        for (int i = 0; i < root.getElementCount(); i++) {
+            elements += root.getElement(i).getElementCount();
+        }
+        long bytes = (long) doc.getLength() * TEXT_CHAR_BYTES + elements * ELEMENT_BYTES;
+        if (compacted) return bytes;
+        return bytes
+            + (long) appliedRuns.size() * APPLIED_RUN_BYTES
+            + (long) rhymeIndex.getDocumentWordCount() * INDEXED_WORD_BYTES
+            + (long) syllableCounter.getCacheSize() * CACHED_LINE_BYTES
+            + (long) schemeAnalyzer.getCacheSize() * CACHED_LABEL_BYTES;
+    }
+
     public void addTextChangeListener(Runnable listener) {
         this.textChangeListener = listener;
     }
 
+    /**
+     * Called on the EDT each time a highlighting pass has been fully painted,
+     * with the {@link System#nanoTime()} at which that pass read the text.
+     * Edits made before that time are reflected in the highlights.
+     */
+    public void addHighlightListener(LongConsumer listener) {
+        this.highlightListener = listener;
+    }
+
     public int getWordCount() {
         String text = getText().trim();
         if (text.isEmpty()) return 0;
@@ -141,6 +441,23 @@ public class EditorPane extends JTextPane implements DocumentListener {
         return count;
     }
 
+    /**
+     * Returns the syllable count of the line the caret is on.
+     */
+    public int getCaretLineSyllables() {
+        // Not meaningful for a line too long to wrap, and costly on every caret move
+        if (LongLineEditorKit.isUnwrappedLine(this, getCaretPosition())) return 0;
+        try {
+            Document doc = getDocument();
+            Element root = doc.getDefaultRootElement();
+            Element line = root.getElement(root.getElementIndex(getCaretPosition()));
+            return syllableCounter.countLine(
+                doc.getText(line.getStartOffset(), line.getEndOffset() - line.getStartOffset()));
+        } catch (BadLocationException ex) {
+            return 0;
+        }
+    }
+
     public void undo() {
         if (undoManager.canUndo()) {
             undoManager.undo();
@@ -168,11 +485,21 @@ public class EditorPane extends JTextPane implements DocumentListener {
 
     @Override
     public void changedUpdate(DocumentEvent e) {
-        scheduleUpdate();
+        // Style changes (mostly our own highlights) are not typing
+        schedulePass();
     }
 
     private void scheduleUpdate() {
-        // Restart timer - this debounces rapid typing
+        highlightScheduler.recordKeystroke(System.currentTimeMillis());
+        schedulePass();
+    }
+
+    /**
+     * Restarts the debounce timer without counting a keystroke, for passes
+     * that re-run rather than follow an edit.
+     */
+    private void schedulePass() {
+        updateTimer.setInitialDelay(highlightScheduler.nextDelay(System.currentTimeMillis()));
         updateTimer.restart();
     }
 
@@ -193,10 +520,12 @@ public class EditorPane extends JTextPane implements DocumentListener {
     private void clearHighlighting() {
         try {
             StyledDocument doc = getStyledDocument();
-            Style defaultStyle = addStyle("default", null);
-            StyleConstants.setForeground(defaultStyle, new Color(30, 30, 30));
-            doc.setCharacterAttributes(0, doc.getLength(), defaultStyle, true);
+            doc.setCharacterAttributes(0, doc.getLength(), RhymeColorAllocator.defaultAttributes(), true);
             currentRhymeGroups = new HashMap<>();
+            appliedRuns = new ArrayList<>();
+            colorAllocator.clear();
+            // Drops any highlight slices still queued
+            highlightGeneration++;
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -204,109 +533,266 @@ public class EditorPane extends JTextPane implements DocumentListener {
 
     /**
      * Main highlighting logic: detects rhymes and applies colors.
+     * Analysis and word matching run in the background; the EDT only diffs
+     * the result against what is painted and applies the difference in slices.
      */
     private void performHighlighting() {
-        if (isUpdating || !highlightingEnabled) return;
-        
+        if (!highlightingEnabled) return;
+        if (suspended || exporting) {
+            suspendedPassPending = true;
+            return;
+        }
+        if (isUpdating) {
+            // Run again once the current pass is done, so this edit is not lost
+            passRequested = true;
+            return;
+        }
+
         isUpdating = true;
+        passRequested = false;
+        highlightScheduler.recordPassStart();
 
-        // Run rhyme detection in background thread
-        new SwingWorker<Map<String, List<String>>, Void>() {
-            private String textSnapshot;
-            
+        // Run rhyme detection on the shared analysis threads
+        analysisContext.execute(new SwingWorker<HighlightPass, Void>() {
             @Override
-            protected Map<String, List<String>> doInBackground() {
+            protected HighlightPass doInBackground() {
                 try {
                     StyledDocument doc = getStyledDocument();
-                    textSnapshot = doc.getText(0, doc.getLength());
-                    return rhymeDetector.findRhymes(textSnapshot);
+                    // Taken before reading, so every edit finished by then is in the snapshot
+                    long snapshotNanos = System.nanoTime();
+                    String textSnapshot = doc.getText(0, doc.getLength());
+                    long start = System.nanoTime();
+                    Map<String, List<String>> endings;
+                    if (loadedTextPending) {
+                        loadedTextPending = false;
+                        endings = analysisCache.collectEndings(textSnapshot);
+                    } else {
+                        endings = rhymeDetector.collectEndings(textSnapshot);
+                    }
+                    // compact() may have cleared the index meanwhile; filling it
+                    // again would hold on to what was just freed
+                    if (!compacted) {
+                        rhymeIndex.updateDocument(endings);
+                    }
+                    Map<String, List<String>> groups = rhymeDetector.groupEndings(endings);
+                    Set<HighlightRun> runs = findRuns(textSnapshot, groups);
+                    highlightScheduler.recordAnalysis(System.nanoTime() - start);
+                    return new HighlightPass(textSnapshot.length(), snapshotNanos, groups, runs);
                 } catch (BadLocationException ex) {
-                    return new HashMap<>();
+                    return new HighlightPass(0, System.nanoTime(), new HashMap<>(), new LinkedHashSet<>());
                 }
             }
 
             @Override
             protected void done() {
                 try {
-                    Map<String, List<String>> rhymeGroups = get();
-                    applyHighlighting(textSnapshot, rhymeGroups);
+                    applyHighlighting(get());
                 } catch (Exception ex) {
                     ex.printStackTrace();
-                } finally {
-                    isUpdating = false;
+                    finishPass();
                 }
             }
-        }.execute();
+        });
     }
 
-    private void applyHighlighting(String text, Map<String, List<String>> rhymeGroups) {
-        try {
-            StyledDocument doc = getStyledDocument();
-            
-            // Reset to default style
-            Style defaultStyle = addStyle("default", null);
-            StyleConstants.setForeground(defaultStyle, new Color(30, 30, 30));
-            StyleConstants.setFontSize(defaultStyle, 16);
-            doc.setCharacterAttributes(0, text.length(), defaultStyle, true);
+    /**
+     * Locates every occurrence of every grouped word in one scan of the text
+     * and pairs it with its group's colour slot. Runs off the EDT.
+     */
+    private Set<HighlightRun> findRuns(String text, Map<String, List<String>> rhymeGroups) {
+        Map<String, Integer> slots = colorAllocator.update(rhymeGroups.keySet());
 
-            currentRhymeGroups = rhymeGroups;
-            
-            if (rhymeGroups.isEmpty()) return;
-
-            // Enhanced color palette with better contrast
-            Color[] colors = {
-                new Color(220, 38, 38),   // Red
-                new Color(37, 99, 235),   // Blue
-                new Color(22, 163, 74),   // Green
-                new Color(234, 88, 12),   // Orange
-                new Color(147, 51, 234),  // Purple
-                new Color(14, 165, 233),  // Cyan
-                new Color(219, 39, 119),  // Pink
-                new Color(202, 138, 4)    // Yellow-gold
-            };
-
-            int colorIndex = 0;
-
-            // Apply highlighting for each rhyme group
-            for (List<String> group : rhymeGroups.values()) {
-                if (group.size() < 2) continue;
-
-                Color color = colors[colorIndex % colors.length];
-                colorIndex++;
-
-                Style style = addStyle("rhymeStyle" + colorIndex, null);
-                StyleConstants.setForeground(style, color);
-                StyleConstants.setBold(style, true);
-
-                // Highlight each word in the group
-                for (String word : group) {
-                    highlightWord(doc, text, word, style);
-                }
+        Map<String, Integer> slotByWord = new HashMap<>();
+        for (Map.Entry<String, List<String>> group : rhymeGroups.entrySet()) {
+            if (group.getValue().size() < 2) continue;
+
+            int slot = slots.get(group.getKey());
+            for (String word : group.getValue()) {
+                slotByWord.put(AsciiScanner.foldCase(word), slot);
             }
+        }
 
-            // Notify listener after highlighting is complete
-            notifyTextChange();
+        Set<HighlightRun> runs = new LinkedHashSet<>();
+        // Fold case once per pass rather than once per word
+        String foldedText = AsciiScanner.foldCase(text);
+        AsciiScanner.findWords(foldedText, slotByWord.keySet(),
+            (start, end, word) -> runs.add(new HighlightRun(start, end, slotByWord.get(word))));
+        return runs;
+    }
 
-        } catch (Exception ex) {
-            ex.printStackTrace();
+    private void applyHighlighting(HighlightPass pass) throws BadLocationException {
+        long start = System.nanoTime();
+        StyledDocument doc = getStyledDocument();
+
+        if (!highlightingEnabled) {
+            finishPass();
+            return;
+        }
+
+        // Compacted while analysing; resuming starts a fresh pass. The worker
+        // may have filled the index just after compact() emptied it.
+        if (compacted) {
+            rhymeIndex.clearDocument();
+            finishPass();
+            return;
+        }
+
+        // The text changed while we were analysing; offsets no longer line up
+        if (doc.getLength() != pass.textLength) {
+            isUpdating = false;
+            schedulePass();
+            return;
+        }
+
+        currentRhymeGroups = pass.groups;
+        Set<HighlightRun> wanted = pass.runs;
+
+        // Runs that are still wanted with the same colour are left alone;
+        // stale ones go back to default. Typing inside or right after a run
+        // stretches its positions, so such runs are reset and re-applied.
+        List<AppliedRun> kept = new ArrayList<>();
+        List<AppliedRun> stale = new ArrayList<>();
+        for (AppliedRun applied : appliedRuns) {
+            if (wanted.remove(applied.current())) {
+                kept.add(applied);
+            } else {
+                stale.add(applied);
+            }
+        }
+
+        List<AppliedRun> added = new ArrayList<>(wanted.size());
+        for (HighlightRun run : wanted) {
+            AppliedRun applied = new AppliedRun(doc.createPosition(run.start), doc.createPosition(run.end), run.slot);
+            added.add(applied);
+            kept.add(applied);
         }
+        appliedRuns = kept;
+
+        paintInSlices(stale, added, 0, highlightGeneration, pass.snapshotNanos, System.nanoTime() - start);
     }
 
-    private void highlightWord(StyledDocument doc, String text, String word, Style style) {
-        String lowerText = text.toLowerCase();
-        String lowerWord = word.toLowerCase();
-        
-        int index = 0;
-        while ((index = lowerText.indexOf(lowerWord, index)) != -1) {
-            // Check for full word match
-            boolean validStart = (index == 0 || !Character.isLetterOrDigit(lowerText.charAt(index - 1)));
-            boolean validEnd = (index + word.length() >= lowerText.length() ||
-                                !Character.isLetterOrDigit(lowerText.charAt(index + word.length())));
-
-            if (validStart && validEnd) {
-                doc.setCharacterAttributes(index, word.length(), style, false);
+    /**
+     * Resets stale runs and paints new ones, at most PAINT_SLICE at a time so a
+     * huge document does not freeze the EDT. Positions keep queued runs in
+     * place if the user types between slices.
+     */
+    private void paintInSlices(List<AppliedRun> stale, List<AppliedRun> added, int from,
+                               int generation, long snapshotNanos, long elapsedNanos) {
+        if (generation != highlightGeneration) {
+            finishPass();
+            return;
+        }
+        if (exporting) {
+            parkedPaint = () -> paintInSlices(stale, added, from, generation, snapshotNanos, elapsedNanos);
+            return;
+        }
+
+        long start = System.nanoTime();
+        StyledDocument doc = getStyledDocument();
+        int total = stale.size() + added.size();
+        int to = Math.min(total, from + PAINT_SLICE);
+
+        for (int i = from; i < to; i++) {
+            boolean reset = i < stale.size();
+            AppliedRun run = reset ? stale.get(i) : added.get(i - stale.size());
+            int runStart = run.start.getOffset();
+            int runEnd = Math.min(run.end.getOffset(), doc.getLength());
+            if (runEnd <= runStart) continue;
+
+            if (reset) {
+                doc.setCharacterAttributes(runStart, runEnd - runStart,
+                                           RhymeColorAllocator.defaultAttributes(), true);
+            } else {
+                doc.setCharacterAttributes(runStart, runEnd - runStart,
+                                           RhymeColorAllocator.attributesFor(run.slot), false);
             }
-            index++;
+        }
+
+        long spent = elapsedNanos + System.nanoTime() - start;
+        if (to < total) {
+            SwingUtilities.invokeLater(() -> paintInSlices(stale, added, to, generation, snapshotNanos, spent));
+            return;
+        }
+
+        highlightScheduler.recordApply(spent, System.currentTimeMillis());
+        if (highlightListener != null) {
+            highlightListener.accept(snapshotNanos);
+        }
+        finishPass();
+
+        // Notify listener after highlighting is complete
+        notifyTextChange();
+    }
+
+    private void finishPass() {
+        isUpdating = false;
+        if (passRequested) {
+            passRequested = false;
+            schedulePass();
+        }
+    }
+
+    /**
+     * Result of a background analysis pass.
+     */
+    private static final class HighlightPass {
+        final int textLength;
+        final long snapshotNanos;
+        final Map<String, List<String>> groups;
+        final Set<HighlightRun> runs;
+
+        HighlightPass(int textLength, long snapshotNanos, Map<String, List<String>> groups,
+                      Set<HighlightRun> runs) {
+            this.textLength = textLength;
+            this.snapshotNanos = snapshotNanos;
+            this.groups = groups;
+            this.runs = runs;
+        }
+    }
+
+    /**
+     * A highlighted word occurrence as offsets, used to compare passes.
+     */
+    private static final class HighlightRun {
+        final int start;
+        final int end;
+        final int slot;
+
+        HighlightRun(int start, int end, int slot) {
+            this.start = start;
+            this.end = end;
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof HighlightRun)) return false;
+            HighlightRun other = (HighlightRun) o;
+            return start == other.start && end == other.end && slot == other.slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return (start * 31 + end) * 31 + slot;
+        }
+    }
+
+    /**
+     * A run painted by an earlier pass. Positions follow later edits.
+     */
+    private static final class AppliedRun {
+        final Position start;
+        final Position end;
+        final int slot;
+
+        AppliedRun(Position start, Position end, int slot) {
+            this.start = start;
+            this.end = end;
+            this.slot = slot;
+        }
+
+        HighlightRun current() {
+            return new HighlightRun(start.getOffset(), end.getOffset(), slot);
         }
     }
-}
\ No newline at end of file
+}
@@ -5,6 +5,9 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.function.BiConsumer;
 
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
@@ -13,6 +16,9 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 public class FileManager {
 
     private File currentFile = null;
+    // Hash of the current file's text as last read or written, in the form open() returns it
+    private long syncedHash = ContentHash.of("");
+    private BiConsumer<File, String> saveListener;
 
     public void save(String content) {
         if (currentFile == null) {
@@ -34,16 +40,23 @@ public class FileManager {
 
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(currentFile))) {
             writer.write(content);
-            JOptionPane.showMessageDialog(null, 
-                "File saved successfully!", 
-                "Save", 
-                JOptionPane.INFORMATION_MESSAGE);
+            markSynced(content);
         } catch (IOException e) {
             JOptionPane.showMessageDialog(null, 
                 "Error saving file: " + e.getMessage(), 
                 "Error", 
                 JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        // Notified once the file is closed, so its size and timestamp are final
+        if (saveListener != null) {
+            saveListener.accept(currentFile, content);
         }
+        JOptionPane.showMessageDialog(null, 
+            "File saved successfully!", 
+            "Save", 
+            JOptionPane.INFORMATION_MESSAGE);
     }
 
     public String open() {
@@ -54,13 +67,10 @@ public class FileManager {
         if (userSelection == JFileChooser.APPROVE_OPTION) {
             currentFile = fileChooser.getSelectedFile();
 
-            try (BufferedReader reader = new BufferedReader(new FileReader(currentFile))) {
-                StringBuilder content = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    content.append(line).append("\n");
-                }
-                return content.toString();
+            try {
+                String content = read(currentFile);
+                markSynced(content);
+                return content;
             } catch (IOException e) {
                 JOptionPane.showMessageDialog(null, 
                     "Error opening file: " + e.getMessage(), 
@@ -71,8 +81,94 @@ public class FileManager {
         return null;
     }
 
+    /**
+     * Asks for an export destination, suggesting the current file's name with
+     * the given extension. Returns null if the user cancels.
+     */
+    public File chooseExportFile(String description, String extension) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export as " + description);
+        fileChooser.setFileFilter(new FileNameExtensionFilter(
+            description + " (*." + extension + ")", extension));
+
+        String baseName = getCurrentFileName();
+        int dot = baseName.lastIndexOf('.');
+        if (dot > 0) {
+            baseName = baseName.substring(0, dot);
+        }
+        File directory = currentFile != null ? currentFile.getParentFile()
+                                             : new File(System.getProperty("user.home"));
+        fileChooser.setSelectedFile(new File(directory, baseName + "." + extension));
+
+        if (fileChooser.showSaveDialog(null) != JFileChooser.APPROVE_OPTION) {
+            return null;
+        }
+
+        File target = fileChooser.getSelectedFile();
+        if (!target.getName().contains(".")) {
+            target = new File(target.getAbsolutePath() + "." + extension);
+        }
+        return target;
+    }
+
+    /**
+     * Called on the EDT after every successful save with the file and the text written.
+     */
+    public void addSaveListener(BiConsumer<File, String> listener) {
+        this.saveListener = listener;
+    }
+
     public void resetFile() {
         currentFile = null;
+        syncedHash = ContentHash.of("");
+    }
+
+    public File getCurrentFile() {
+        return currentFile;
+    }
+
+    /**
+     * Reads a file the way open() does: line by line, each line ending in '\n'.
+     * Safe to call off the EDT.
+     */
+    public static String read(File file) throws IOException {
+        try (Reader reader = new FileReader(file)) {
+            return readLines(reader);
+        }
+    }
+
+    /**
+     * Records that the current file on disk holds this text.
+     */
+    public void markSynced(String text) {
+        syncedHash = ContentHash.of(asRead(text));
+    }
+
+    /**
+     * Returns whether this text is what the current file held when it was
+     * last opened, saved or reloaded.
+     */
+    public boolean isSynced(String text) {
+        return ContentHash.of(asRead(text)) == syncedHash;
+    }
+
+    // What reading the text back from disk would give
+    private static String asRead(String text) {
+        try {
+            return readLines(new StringReader(text));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String readLines(Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        StringBuilder content = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            content.append(line).append("\n");
+        }
+        return content.toString();
     }
 
     public String getCurrentFileName() {
@@ -0,0 +1,148 @@
+package com.rhyme_editor;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * FileWatcher - Reports when open files are changed by another program
+ *
+ * Watches the directories of a set of files with one {@link WatchService} and
+ * calls back on its own daemon thread when one of those files is modified or
+ * replaced. Tools often write a file in several steps (truncate, write,
+ * rename), so events are collected until the directories have been quiet for
+ * a short while and each changed file is reported once.
+ */
+public class FileWatcher {
+
+    // Quiet period before a burst of events is reported
+    private static final long SETTLE_MILLIS = 150;
+
+    private final Consumer<Path> onChange;
+    private WatchService watchService;
+    // Watched files per directory; guarded by this
+    private final Map<Path, Set<Path>> filesByDirectory = new HashMap<>();
+    private final Map<Path, WatchKey> keysByDirectory = new HashMap<>();
+
+    /**
+     * @param onChange called with each changed file's path, on the watcher thread
+     */
+    public FileWatcher(Consumer<Path> onChange) {
+        this.onChange = onChange;
+    }
+
+    /**
+     * Starts watching a file. Watching a file twice has no extra effect.
+     */
+    public synchronized void watch(Path target) {
+        Path file = target.toAbsolutePath().normalize();
+        Path directory = file.getParent();
+        if (directory == null) return;
+
+        Set<Path> files = filesByDirectory.get(directory);
+        if (files != null) {
+            files.add(file);
+            return;
+        }
+
+        try {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                WatchService service = watchService;
+                Thread thread = new Thread(() -> run(service), "file-watcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            WatchKey key = directory.register(watchService,
+                                              StandardWatchEventKinds.ENTRY_CREATE,
+                                              StandardWatchEventKinds.ENTRY_MODIFY);
+            keysByDirectory.put(directory, key);
+            files = new LinkedHashSet<>();
+            files.add(file);
+            filesByDirectory.put(directory, files);
+        } catch (IOException e) {
+            // Watching is a convenience; without it the file simply is not reloaded
+        }
+    }
+
+    public synchronized void unwatch(Path target) {
+        Path file = target.toAbsolutePath().normalize();
+        Path directory = file.getParent();
+        Set<Path> files = filesByDirectory.get(directory);
+        if (files == null || !files.remove(file) || !files.isEmpty()) return;
+
+        filesByDirectory.remove(directory);
+        WatchKey key = keysByDirectory.remove(directory);
+        if (key != null) {
+            key.cancel();
+        }
+    }
+
+    public synchronized void stop() {
+        filesByDirectory.clear();
+        keysByDirectory.clear();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+            watchService = null;
+        }
+    }
+
+    private void run(WatchService service) {
+        try {
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                drain(service.take(), changed);
+
+                // Let multi-step writes finish before reporting
+                WatchKey more;
+                while ((more = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    drain(more, changed);
+                }
+
+                for (Path file : changed) {
+                    onChange.accept(file);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    /**
+     * Adds the watched files that the key's pending events concern.
+     */
+    private void drain(WatchKey key, Set<Path> changed) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            synchronized (this) {
+                Set<Path> files = filesByDirectory.get(directory);
+                if (files == null) continue;
+
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    changed.addAll(files);
+                } else {
+                    Path file = directory.resolve((Path) event.context());
+                    if (files.contains(file)) {
+                        changed.add(file);
+                    }
+                }
+            }
+        }
+        key.reset();
+    }
+}
@@ -0,0 +1,304 @@
+package com.rhyme_editor;
+
+import java.awt.Color;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.Segment;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+
+/**
+ * HighlightExporter - Streams colour-coded lyrics to HTML or RTF
+ *
+ * Text is written run by run straight to a file channel, so the exported file
+ * is never assembled in memory. Two sources feed the same writers: the editor's
+ * styled document (walked leaf by leaf, in slices under the document's read
+ * lock) and plain text analysed on the spot, for command-line batch jobs.
+ */
+public class HighlightExporter {
+
+    public enum Format {
+        HTML("html"),
+        RTF("rtf");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    // Characters read per document access; bounds memory and lock hold time
+    private static final int SLICE = 64 * 1024;
+
+    /**
+     * Exports a styled document. Must not run on the EDT; the caller must keep
+     * the document from being edited or restyled while this runs, see
+     * {@link EditorPane#beginExport()}.
+     */
+    public void exportDocument(StyledDocument doc, Path target, Format format) throws IOException {
+        Map<Color, Integer> slotByColor = new HashMap<>();
+        List<Color> palette = RhymeColorAllocator.paletteColors();
+        for (int slot = 0; slot < palette.size(); slot++) {
+            slotByColor.put(palette.get(slot), slot);
+        }
+
+        try (RunWriter writer = open(target, format)) {
+            int[] offset = { 0 };
+            Segment segment = new Segment();
+            segment.setPartialReturn(true);
+
+            while (offset[0] < doc.getLength()) {
+                // Hold the read lock for one slice at a time, not the whole export
+                doc.render(() -> {
+                    try {
+                        int sliceEnd = Math.min(doc.getLength(), offset[0] + SLICE);
+                        while (offset[0] < sliceEnd) {
+                            Element leaf = doc.getCharacterElement(offset[0]);
+                            int end = Math.min(leaf.getEndOffset(), sliceEnd);
+                            doc.getText(offset[0], end - offset[0], segment);
+                            writer.writeRun(segment, slotOf(leaf.getAttributes(), slotByColor));
+                            offset[0] += segment.count;
+                        }
+                    } catch (BadLocationException e) {
+                        // Document shrank under us; stop at what we have
+                        offset[0] = Integer.MAX_VALUE;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Analyses plain text and exports it with the same colours the editor would use.
+     */
+    public void exportText(String text, RhymeDetector rhymeDetector, Path target, Format format)
+            throws IOException {
+        Map<String, List<String>> groups = rhymeDetector.findRhymes(text);
+        Map<String, Integer> slots = new RhymeColorAllocator().update(groups.keySet());
+
+        Map<String, Integer> slotByWord = new HashMap<>();
+        for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+            int slot = slots.get(group.getKey());
+            for (String word : group.getValue()) {
+                slotByWord.put(AsciiScanner.foldCase(word), slot);
+            }
+        }
+
+        // findWords reports matches in text order, so each run is written as it is found
+        String foldedText = AsciiScanner.foldCase(text);
+        try (RunWriter writer = open(target, format)) {
+            int[] position = { 0 };
+            AsciiScanner.findWords(foldedText, slotByWord.keySet(), (start, end, word) -> {
+                if (start < position[0]) return;
+                try {
+                    writer.writeRun(text.subSequence(position[0], start), -1);
+                    writer.writeRun(text.subSequence(start, end), slotByWord.get(word));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                position[0] = end;
+            });
+            writer.writeRun(text.subSequence(position[0], text.length()), -1);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Command-line entry: exports a text file without opening the editor. The
+     * file is read the way the editor opens it, so both give the same output.
+     */
+    public static void exportFile(Path source, Path target, Format format) throws IOException {
+        String text = FileManager.read(source.toFile());
+        new HighlightExporter().exportText(text, new RhymeDetector(), target, format);
+    }
+
+    private static int slotOf(AttributeSet attributes, Map<Color, Integer> slotByColor) {
+        if (!StyleConstants.isBold(attributes)) return -1;
+        Integer slot = slotByColor.get(StyleConstants.getForeground(attributes));
+        return slot != null ? slot : -1;
+    }
+
+    private RunWriter open(Path target, Format format) throws IOException {
+        FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                                               StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1),
+                                        SLICE);
+        String title = target.getFileName() != null ? target.getFileName().toString() : "lyrics";
+        RunWriter writer = format == Format.HTML ? new HtmlWriter(out) : new RtfWriter(out);
+        writer.begin(title);
+        return writer;
+    }
+
+    /**
+     * Turns a sequence of coloured runs into one output format. A slot of -1
+     * means default text.
+     */
+    private abstract static class RunWriter implements AutoCloseable {
+        protected final Writer out;
+        protected int currentSlot = -1;
+
+        RunWriter(Writer out) {
+            this.out = out;
+        }
+
+        abstract void begin(String title) throws IOException;
+
+        abstract void switchSlot(int from, int to) throws IOException;
+
+        abstract void writeText(CharSequence text) throws IOException;
+
+        abstract void end() throws IOException;
+
+        void writeRun(CharSequence text, int slot) throws IOException {
+            if (text.length() == 0) return;
+            if (slot != currentSlot) {
+                switchSlot(currentSlot, slot);
+                currentSlot = slot;
+            }
+            writeText(text);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (currentSlot != -1) {
+                    switchSlot(currentSlot, -1);
+                }
+                end();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static final class HtmlWriter extends RunWriter {
+
+        HtmlWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void begin(String title) throws IOException {
+            out.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>");
+            writeText(title);
+            out.write("</title>\n<style>\n");
+            out.write("pre { font-family: sans-serif; font-size: 16px; color: "
+                      + hex(RhymeColorAllocator.DEFAULT_COLOR) + "; }\n");
+            List<Color> palette = RhymeColorAllocator.paletteColors();
+            for (int slot = 0; slot < palette.size(); slot++) {
+                out.write(".r" + slot + " { color: " + hex(palette.get(slot)) + "; font-weight: bold; }\n");
+            }
+            out.write("</style>\n</head>\n<body>\n<pre>");
+        }
+
+        @Override
+        void switchSlot(int from, int to) throws IOException {
+            if (from != -1) out.write("</span>");
+            if (to != -1) out.write("<span class=\"r" + (to % RhymeColorAllocator.PALETTE_SIZE) + "\">");
+        }
+
+        @Override
+        void writeText(CharSequence text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '<': out.write("&lt;"); break;
+                    case '>': out.write("&gt;"); break;
+                    case '&': out.write("&amp;"); break;
+                    case '"': out.write("&quot;"); break;
+                    default: out.write(c);
+                }
+            }
+        }
+
+        @Override
+        void end() throws IOException {
+            out.write("</pre>\n</body>\n</html>\n");
+        }
+
+        private static String hex(Color color) {
+            return String.format("#%02x%02x%02x", color.getRed(), color.getGreen(), color.getBlue());
+        }
+    }
+
+    private static final class RtfWriter extends RunWriter {
+
+        RtfWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void begin(String title) throws IOException {
+            out.write("{\\rtf1\\ansi\\deff0{\\fonttbl{\\f0\\fswiss Helvetica;}}\n{\\colortbl;");
+            writeColor(RhymeColorAllocator.DEFAULT_COLOR);
+            for (Color color : RhymeColorAllocator.paletteColors()) {
+                writeColor(color);
+            }
+            out.write("}\n\\f0\\fs32\\cf1 ");
+        }
+
+        @Override
+        void switchSlot(int from, int to) throws IOException {
+            if (to == -1) {
+                out.write("\\cf1\\b0 ");
+            } else {
+                // Colour table index 1 is the default colour, slots start at 2
+                out.write("\\cf" + (to % RhymeColorAllocator.PALETTE_SIZE + 2) + "\\b ");
+            }
+        }
+
+        @Override
+        void writeText(CharSequence text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\\' || c == '{' || c == '}') {
+                    out.write('\\');
+                    out.write(c);
+                } else if (c == '\n') {
+                    out.write("\\par\n");
+                } else if (c == '\t') {
+                    out.write("\\tab ");
+                } else if (c == '\r') {
+                    // Line breaks are taken from '\n'
+                } else if (c > 127) {
+                    out.write("\\u" + (short) c + "?");
+                } else {
+                    out.write(c);
+                }
+            }
+        }
+
+        @Override
+        void end() throws IOException {
+            out.write("}\n");
+        }
+
+        private void writeColor(Color color) throws IOException {
+            out.write("\\red" + color.getRed() + "\\green" + color.getGreen() + "\\blue" + color.getBlue() + ";");
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.rhyme_editor;
+
+/**
+ * HighlightScheduler - Adaptive debounce for rhyme highlighting
+ *
+ * Measures how long recent analysis and highlight passes took and how fast
+ * the user is typing, then derives the debounce delay from those numbers.
+ * Short files on a fast machine get highlighted almost immediately, while
+ * expensive documents are throttled so the EDT stays below a target utilisation.
+ */
+public class HighlightScheduler {
+
+    private static final double SMOOTHING = 0.3;
+    private static final long IDLE_GAP_MS = 2000;
+    static final int DEFAULT_MIN_DELAY_MS = 50;
+    static final int DEFAULT_MAX_DELAY_MS = 1500;
+    static final double DEFAULT_TARGET_UTILISATION = 0.25;
+
+    private final int minDelayMs;
+    // Also the longest an edit waits for its pass while typing continues
+    private final int maxDelayMs;
+    // Fraction of EDT time highlighting may use
+    private final double targetUtilisation;
+
+    // Exponential moving averages, all in milliseconds
+    private double avgAnalysisMs = 0;
+    private double avgApplyMs = 0;
+    private double avgKeystrokeGapMs = 0;
+
+    private long lastKeystrokeMs = -1;
+    private long lastPassEndMs = -1;
+    // First edit not yet covered by a started pass
+    private long batchStartMs = -1;
+
+    public HighlightScheduler() {
+        this(DEFAULT_MIN_DELAY_MS, DEFAULT_MAX_DELAY_MS, DEFAULT_TARGET_UTILISATION);
+    }
+
+    /**
+     * @param minDelayMs Lower bound for the debounce delay in milliseconds.
+     * @param maxDelayMs Upper bound for the debounce delay, and for how long
+     *                   an edit waits for its pass, in milliseconds.
+     * @param targetUtilisation Fraction (0..1] of EDT time highlighting may use.
+     */
+    public HighlightScheduler(int minDelayMs, int maxDelayMs, double targetUtilisation) {
+        if (minDelayMs < 0 || maxDelayMs < minDelayMs) {
+            throw new IllegalArgumentException("Invalid delay bounds: " + minDelayMs + ".." + maxDelayMs);
+        }
+        if (!(targetUtilisation > 0 && targetUtilisation <= 1)) {
+            throw new IllegalArgumentException("EDT utilisation must be in (0, 1]: " + targetUtilisation);
+        }
+        this.minDelayMs = minDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.targetUtilisation = targetUtilisation;
+    }
+
+    /**
+     * Records a document edit so the typing cadence can be tracked.
+     */
+    public synchronized void recordKeystroke(long nowMs) {
+        if (lastKeystrokeMs >= 0) {
+            long gap = nowMs - lastKeystrokeMs;
+            // Pauses between bursts say nothing about typing speed
+            if (gap < IDLE_GAP_MS) {
+                avgKeystrokeGapMs = smooth(avgKeystrokeGapMs, gap);
+            }
+        }
+        lastKeystrokeMs = nowMs;
+        if (batchStartMs < 0) {
+            batchStartMs = nowMs;
+        }
+    }
+
+    /**
+     * Records that a pass has started; it covers every edit recorded so far.
+     */
+    public synchronized void recordPassStart() {
+        batchStartMs = -1;
+    }
+
+    /**
+     * Records the duration of a background rhyme analysis.
+     */
+    public synchronized void recordAnalysis(long nanos) {
+        avgAnalysisMs = smooth(avgAnalysisMs, nanos / 1_000_000.0);
+    }
+
+    /**
+     * Records the duration of applying highlights on the EDT.
+     */
+    public synchronized void recordApply(long nanos, long nowMs) {
+        avgApplyMs = smooth(avgApplyMs, nanos / 1_000_000.0);
+        lastPassEndMs = nowMs;
+    }
+
+    /**
+     * Computes how long to wait before the next highlight pass. The delay
+     * never runs past the maximum delay after the first edit waiting for a pass, so
+     * continuous typing cannot hold highlighting off indefinitely.
+     */
+    public synchronized int nextDelay(long nowMs) {
+        // Wait a little longer than the user's typical gap between keys,
+        // so a pass rarely starts in the middle of a word
+        double delay = Math.max(minDelayMs, avgKeystrokeGapMs * 1.5);
+
+        // Expensive passes should not be queued faster than they complete
+        delay = Math.max(delay, avgAnalysisMs + avgApplyMs);
+
+        // Keep EDT time spent applying highlights under the target share:
+        // a pass costing X ms needs X / target ms between pass starts
+        if (lastPassEndMs >= 0 && avgApplyMs > 0) {
+            double minInterval = avgApplyMs / targetUtilisation;
+            double sinceLastPass = nowMs - lastPassEndMs;
+            delay = Math.max(delay, minInterval - sinceLastPass);
+        }
+
+        long clamped = Math.min(maxDelayMs, Math.max(minDelayMs, Math.round(delay)));
+        if (batchStartMs >= 0) {
+            clamped = Math.min(clamped, Math.max(0, batchStartMs + maxDelayMs - nowMs));
+        }
+        return (int) clamped;
+    }
+
+    public synchronized double getAverageAnalysisMillis() {
+        return avgAnalysisMs;
+    }
+
+    public synchronized double getAverageApplyMillis() {
+        return avgApplyMs;
+    }
+
+    private static double smooth(double average, double sample) {
+        return average == 0 ? sample : average + SMOOTHING * (sample - average);
+    }
+}
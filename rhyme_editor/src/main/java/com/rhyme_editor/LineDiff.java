@@ -0,0 +1,273 @@
+package com.rhyme_editor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LineDiff - Line-level diff that turns one text into another with few edits
+ *
+ * Common leading and trailing lines are skipped first, which is all an
+ * external edit to one part of a big file usually needs. The lines left in the
+ * middle are matched with a longest-common-subsequence table when it is small
+ * enough. Bigger middles are first split at lines that occur exactly once on
+ * both sides (as in patience diff), and each piece is diffed the same way; a
+ * piece with no such anchors is replaced as one block. Each resulting edit is then
+ * trimmed to the characters that actually differ, so untouched words (and the
+ * highlight positions on them) are left alone.
+ */
+public final class LineDiff {
+
+    // Largest middle section (old lines x new lines) matched line by line
+    private static final int MAX_LCS_CELLS = 1 << 20;
+
+    private LineDiff() {
+    }
+
+    /**
+     * Replace {@code length} characters at {@code offset} of the old text with {@code text}.
+     */
+    public static final class Edit {
+        public final int offset;
+        public final int length;
+        public final String text;
+
+        Edit(int offset, int length, String text) {
+            this.offset = offset;
+            this.length = length;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Returns the edits that turn {@code oldText} into {@code newText}, in
+     * increasing offset order. Offsets refer to the old text, so apply them
+     * from last to first.
+     */
+    public static List<Edit> diff(String oldText, String newText) {
+        List<Edit> edits = new ArrayList<>();
+        if (oldText.equals(newText)) return edits;
+
+        int[] oldLines = lineStarts(oldText);
+        int[] newLines = lineStarts(newText);
+        int oldCount = oldLines.length - 1;
+        int newCount = newLines.length - 1;
+
+        diffRange(edits, oldText, oldLines, 0, oldCount, newText, newLines, 0, newCount);
+        return edits;
+    }
+
+    /**
+     * Diffs old lines [oldFrom, oldTo) against new lines [newFrom, newTo).
+     */
+    private static void diffRange(List<Edit> edits,
+                                  String oldText, int[] oldLines, int oldFrom, int oldTo,
+                                  String newText, int[] newLines, int newFrom, int newTo) {
+        while (oldFrom < oldTo && newFrom < newTo
+               && sameLine(oldText, oldLines, oldFrom, newText, newLines, newFrom)) {
+            oldFrom++;
+            newFrom++;
+        }
+        while (oldTo > oldFrom && newTo > newFrom
+               && sameLine(oldText, oldLines, oldTo - 1, newText, newLines, newTo - 1)) {
+            oldTo--;
+            newTo--;
+        }
+
+        long cells = (long) (oldTo - oldFrom) * (newTo - newFrom);
+        if (cells <= MAX_LCS_CELLS) {
+            matchLines(edits, oldText, oldLines, oldFrom, oldTo, newText, newLines, newFrom, newTo);
+            return;
+        }
+
+        int[][] anchors = uniqueAnchors(oldText, oldLines, oldFrom, oldTo, newText, newLines, newFrom, newTo);
+        if (anchors.length == 0) {
+            addEdit(edits, oldText, oldLines, oldFrom, oldTo, newText, newLines, newFrom, newTo);
+            return;
+        }
+
+        int oldPos = oldFrom;
+        int newPos = newFrom;
+        for (int[] anchor : anchors) {
+            diffRange(edits, oldText, oldLines, oldPos, anchor[0], newText, newLines, newPos, anchor[1]);
+            oldPos = anchor[0] + 1;
+            newPos = anchor[1] + 1;
+        }
+        diffRange(edits, oldText, oldLines, oldPos, oldTo, newText, newLines, newPos, newTo);
+    }
+
+    /**
+     * Returns {oldLine, newLine} pairs of lines that occur exactly once in each
+     * range, keeping the longest run that is in the same order on both sides.
+     */
+    private static int[][] uniqueAnchors(String oldText, int[] oldLines, int oldFrom, int oldTo,
+                                         String newText, int[] newLines, int newFrom, int newTo) {
+        // hash -> {count in old, line in old, count in new, line in new}
+        Map<Long, int[]> occurrences = new HashMap<>();
+        for (int line = oldFrom; line < oldTo; line++) {
+            int[] seen = occurrences.computeIfAbsent(
+                ContentHash.of(oldText, oldLines[line], oldLines[line + 1]), k -> new int[4]);
+            seen[0]++;
+            seen[1] = line;
+        }
+        for (int line = newFrom; line < newTo; line++) {
+            int[] seen = occurrences.get(ContentHash.of(newText, newLines[line], newLines[line + 1]));
+            if (seen != null) {
+                seen[2]++;
+                seen[3] = line;
+            }
+        }
+
+        List<int[]> pairs = new ArrayList<>();
+        for (int[] seen : occurrences.values()) {
+            if (seen[0] == 1 && seen[2] == 1
+                    && sameLine(oldText, oldLines, seen[1], newText, newLines, seen[3])) {
+                pairs.add(new int[] { seen[1], seen[3] });
+            }
+        }
+        pairs.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+        // Longest increasing run of new lines, by patience sorting
+        int[] tails = new int[pairs.size()];
+        int[] previous = new int[pairs.size()];
+        int length = 0;
+        for (int i = 0; i < pairs.size(); i++) {
+            int newLine = pairs.get(i)[1];
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (pairs.get(tails[mid])[1] < newLine) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) length++;
+        }
+
+        int[][] anchors = new int[length][];
+        for (int i = length - 1, k = length > 0 ? tails[length - 1] : -1; i >= 0; i--, k = previous[k]) {
+            anchors[i] = pairs.get(k);
+        }
+        return anchors;
+    }
+
+    /**
+     * Diffs old lines [oldFrom, oldTo) against new lines [newFrom, newTo) with an LCS table.
+     */
+    private static void matchLines(List<Edit> edits,
+                                   String oldText, int[] oldLines, int oldFrom, int oldTo,
+                                   String newText, int[] newLines, int newFrom, int newTo) {
+        int rows = oldTo - oldFrom;
+        int cols = newTo - newFrom;
+        long[] oldHashes = lineHashes(oldText, oldLines, oldFrom, oldTo);
+        long[] newHashes = lineHashes(newText, newLines, newFrom, newTo);
+
+        // lcs[i][j] = LCS length of old lines i.. and new lines j.., stored flat
+        int width = cols + 1;
+        int[] lcs = new int[(rows + 1) * width];
+        for (int i = rows - 1; i >= 0; i--) {
+            for (int j = cols - 1; j >= 0; j--) {
+                if (oldHashes[i] == newHashes[j]
+                        && sameLine(oldText, oldLines, oldFrom + i, newText, newLines, newFrom + j)) {
+                    lcs[i * width + j] = lcs[(i + 1) * width + j + 1] + 1;
+                } else {
+                    lcs[i * width + j] = Math.max(lcs[(i + 1) * width + j], lcs[i * width + j + 1]);
+                }
+            }
+        }
+
+        // Walk the table; every run of unmatched lines becomes one edit
+        int i = 0;
+        int j = 0;
+        int hunkOld = 0;
+        int hunkNew = 0;
+        while (i < rows || j < cols) {
+            boolean match = i < rows && j < cols && oldHashes[i] == newHashes[j]
+                && lcs[i * width + j] == lcs[(i + 1) * width + j + 1] + 1
+                && sameLine(oldText, oldLines, oldFrom + i, newText, newLines, newFrom + j);
+            if (match) {
+                addEdit(edits, oldText, oldLines, oldFrom + hunkOld, oldFrom + i,
+                        newText, newLines, newFrom + hunkNew, newFrom + j);
+                i++;
+                j++;
+                hunkOld = i;
+                hunkNew = j;
+            } else if (j < cols && (i == rows || lcs[i * width + j + 1] >= lcs[(i + 1) * width + j])) {
+                j++;
+            } else {
+                i++;
+            }
+        }
+        addEdit(edits, oldText, oldLines, oldFrom + hunkOld, oldFrom + rows,
+                newText, newLines, newFrom + hunkNew, newFrom + cols);
+    }
+
+    /**
+     * Adds the edit replacing old lines [oldFrom, oldTo) with new lines
+     * [newFrom, newTo), trimmed to the characters that differ.
+     */
+    private static void addEdit(List<Edit> edits,
+                                String oldText, int[] oldLines, int oldFrom, int oldTo,
+                                String newText, int[] newLines, int newFrom, int newTo) {
+        if (oldFrom == oldTo && newFrom == newTo) return;
+
+        int oldStart = oldLines[oldFrom];
+        int oldEnd = oldLines[oldTo];
+        int newStart = newLines[newFrom];
+        int newEnd = newLines[newTo];
+
+        while (oldStart < oldEnd && newStart < newEnd && oldText.charAt(oldStart) == newText.charAt(newStart)) {
+            oldStart++;
+            newStart++;
+        }
+        while (oldEnd > oldStart && newEnd > newStart && oldText.charAt(oldEnd - 1) == newText.charAt(newEnd - 1)) {
+            oldEnd--;
+            newEnd--;
+        }
+        if (oldStart == oldEnd && newStart == newEnd) return;
+
+        edits.add(new Edit(oldStart, oldEnd - oldStart, newText.substring(newStart, newEnd)));
+    }
+
+    /**
+     * Returns the start offset of every line plus the text length, so line i
+     * spans [starts[i], starts[i + 1]) including its '\n'.
+     */
+    private static int[] lineStarts(String text) {
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') count++;
+        }
+        // A trailing '\n' does not start another line
+        if (!text.isEmpty() && text.charAt(text.length() - 1) == '\n') count--;
+        if (text.isEmpty()) count = 0;
+
+        int[] starts = new int[count + 1];
+        int line = 1;
+        for (int i = 0; i < text.length() - 1; i++) {
+            if (text.charAt(i) == '\n') starts[line++] = i + 1;
+        }
+        starts[count] = text.length();
+        return starts;
+    }
+
+    private static long[] lineHashes(String text, int[] starts, int from, int to) {
+        long[] hashes = new long[to - from];
+        for (int line = from; line < to; line++) {
+            hashes[line - from] = ContentHash.of(text, starts[line], starts[line + 1]);
+        }
+        return hashes;
+    }
+
+    private static boolean sameLine(String oldText, int[] oldLines, int oldLine,
+                                    String newText, int[] newLines, int newLine) {
+        int length = oldLines[oldLine + 1] - oldLines[oldLine];
+        return length == newLines[newLine + 1] - newLines[newLine]
+            && oldText.regionMatches(oldLines[oldLine], newText, newLines[newLine], length);
+    }
+}
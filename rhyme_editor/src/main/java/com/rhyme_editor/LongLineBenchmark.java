@@ -0,0 +1,164 @@
+package com.rhyme_editor;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+/**
+ * LongLineBenchmark - Times the editor on a document that is one huge line
+ *
+ * Usage: LongLineBenchmark [kilobytes] [plain|highlight] [rounds]
+ *
+ * Loads a single unbroken line of lyrics-like words (1024 KB by default) into
+ * a headless EditorPane the size of a window, then reports how long the load
+ * and first layout take, and the average cost of a caret move, a scroll to a
+ * random spot, a keystroke and a repaint of the visible area (gutter
+ * included); the steps that change the view end with a repaint. With
+ * "highlight" the rhyme highlights are painted first, so the line is split
+ * into many styled runs as it is in the editor.
+ */
+public class LongLineBenchmark {
+
+    private static final int VIEW_WIDTH = 1000;
+    private static final int VIEW_HEIGHT = 640;
+    private static final String[] WORDS = {
+        "light", "night", "bright", "the", "and", "fire", "higher", "we", "ran",
+        "through", "rain", "again", "pain", "a", "day", "away", "stay", "you"
+    };
+
+    private final int rounds;
+    private EditorPane editor;
+    private JScrollPane scrollPane;
+    private final BufferedImage canvas = new BufferedImage(VIEW_WIDTH, VIEW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+
+    private LongLineBenchmark(int rounds) {
+        this.rounds = rounds;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int kilobytes = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        boolean highlight = args.length > 1 && args[1].equals("highlight");
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        new LongLineBenchmark(rounds).run(line(kilobytes * 1024), highlight);
+        System.exit(0);
+    }
+
+    private static String line(int length) {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        text.setLength(length);
+        return text.toString();
+    }
+
+    private void run(String text, boolean highlight) throws Exception {
+        CountDownLatch highlighted = new CountDownLatch(1);
+        SwingUtilities.invokeAndWait(() -> {
+            editor = new EditorPane();
+            editor.setHighlightingEnabled(highlight);
+            editor.addHighlightListener(snapshotNanos -> highlighted.countDown());
+            scrollPane = editor.getScrollPane();
+            scrollPane.setSize(VIEW_WIDTH, VIEW_HEIGHT);
+        });
+
+        System.out.printf("Document: one line of %d chars, highlighting %s%n",
+                          text.length(), highlight ? "on" : "off");
+        time("load (setPaneText)", () -> editor.setPaneText(text));
+        time("first layout", () -> SessionReplay.layOut(scrollPane));
+        time("first paint", this::paint);
+
+        if (highlight) {
+            long start = System.nanoTime();
+            if (!highlighted.await(5, TimeUnit.MINUTES)) {
+                System.out.println("Highlighting did not finish");
+            }
+            System.out.printf("%-22s %10.1f ms%n", "highlights painted", (System.nanoTime() - start) / 1e6);
+            SwingUtilities.invokeAndWait(() -> SessionReplay.layOut(scrollPane));
+        }
+
+        Random random = new Random(7);
+        int[] offsets = new int[rounds];
+        for (int i = 0; i < rounds; i++) {
+            offsets[i] = random.nextInt(text.length());
+        }
+
+        average("caret move", () -> {
+            for (int offset : offsets) {
+                editor.setCaretPosition(offset);
+                editor.scrollRectToVisible(modelToView(offset));
+            }
+        });
+        average("scroll + paint", () -> {
+            for (int offset : offsets) {
+                editor.scrollRectToVisible(modelToView(offset));
+                paint();
+            }
+        });
+        average("keystroke + paint", () -> {
+            Document doc = editor.getDocument();
+            for (int offset : offsets) {
+                try {
+                    doc.insertString(offset, "x", null);
+                } catch (BadLocationException e) {
+                    throw new IllegalStateException(e);
+                }
+                paint();
+            }
+        });
+        average("repaint", () -> {
+            for (int i = 0; i < rounds; i++) {
+                paint();
+            }
+        });
+    }
+
+    private Rectangle modelToView(int offset) {
+        try {
+            Rectangle2D r = editor.modelToView2D(offset);
+            return r != null ? r.getBounds() : new Rectangle();
+        } catch (Exception e) {
+            return new Rectangle();
+        }
+    }
+
+    private void paint() {
+        Graphics2D g = canvas.createGraphics();
+        try {
+            SessionReplay.layOut(scrollPane);
+            scrollPane.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void time(String label, Runnable step) throws Exception {
+        long[] elapsed = new long[1];
+        SwingUtilities.invokeAndWait(() -> {
+            long start = System.nanoTime();
+            step.run();
+            elapsed[0] = System.nanoTime() - start;
+        });
+        System.out.printf("%-22s %10.1f ms%n", label, elapsed[0] / 1e6);
+    }
+
+    private void average(String label, Runnable steps) throws Exception {
+        long[] elapsed = new long[1];
+        SwingUtilities.invokeAndWait(() -> {
+            long start = System.nanoTime();
+            steps.run();
+            elapsed[0] = System.nanoTime() - start;
+        });
+        System.out.printf("%-22s %10.3f ms each%n", label, elapsed[0] / 1e6 / rounds);
+    }
+}
@@ -0,0 +1,166 @@
+package com.rhyme_editor;
+
+import java.awt.Shape;
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.Action;
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BoxView;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.Position;
+import javax.swing.text.StyledEditorKit;
+import javax.swing.text.TextAction;
+import javax.swing.text.Utilities;
+import javax.swing.text.View;
+import javax.swing.text.ViewFactory;
+
+/**
+ * LongLineEditorKit - Styled editor kit that shows very long lines unwrapped
+ *
+ * Lines longer than LONG_LINE_CHARS get a {@link LongLineView} instead of the
+ * usual wrapping paragraph view; everything else is created as by
+ * {@link StyledEditorKit}. A line view is swapped when an edit takes its line
+ * across the limit (back only below half of it, so typing at the limit does
+ * not flip-flop). A long line's minimum width is its full width, so the
+ * editor stops tracking the viewport width and scrolls horizontally while
+ * such a line is present.
+ *
+ * Home and End normally search for the row edge one character at a time; on
+ * an unwrapped line they jump straight to the line's start or end.
+ */
+public class LongLineEditorKit extends StyledEditorKit {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int LONG_LINE_CHARS = 16 * 1024;
+
+    private final ViewFactory styledFactory = super.getViewFactory();
+    private final ViewFactory factory = elem -> {
+        String kind = elem.getName();
+        if (AbstractDocument.SectionElementName.equals(kind)) {
+            return new SectionView(elem);
+        }
+        if (AbstractDocument.ParagraphElementName.equals(kind) && lineLength(elem) > LONG_LINE_CHARS) {
+            return new LongLineView(elem);
+        }
+        return styledFactory.create(elem);
+    };
+
+    @Override
+    public ViewFactory getViewFactory() {
+        return factory;
+    }
+
+    @Override
+    public Action[] getActions() {
+        Action[] actions = super.getActions();
+        List<Action> lineEdges = new ArrayList<>();
+        for (Action action : actions) {
+            Object name = action.getValue(Action.NAME);
+            if (beginLineAction.equals(name) || selectionBeginLineAction.equals(name)) {
+                lineEdges.add(new LineEdgeAction((String) name, action, true));
+            } else if (endLineAction.equals(name) || selectionEndLineAction.equals(name)) {
+                lineEdges.add(new LineEdgeAction((String) name, action, false));
+            }
+        }
+        return TextAction.augmentList(actions, lineEdges.toArray(new Action[0]));
+    }
+
+    /**
+     * Returns true if the line holding {@code offset} is shown unwrapped by a
+     * {@link LongLineView}, i.e. the line is a single row.
+     */
+    static boolean isUnwrappedLine(JTextComponent component, int offset) {
+        View root = component.getUI().getRootView(component);
+        if (root.getViewCount() == 0) return false;
+        View section = root.getView(0);
+        int index = section.getViewIndex(offset, Position.Bias.Forward);
+        return index >= 0 && section.getView(index) instanceof LongLineView;
+    }
+
+    private static int lineLength(Element paragraph) {
+        return paragraph.getEndOffset() - paragraph.getStartOffset();
+    }
+
+    /**
+     * Top-level view that swaps a line's view when an edit makes it long or
+     * short, since edits inside a line do not recreate its view.
+     */
+    private static final class SectionView extends BoxView {
+
+        SectionView(Element elem) {
+            super(elem, View.Y_AXIS);
+        }
+
+        @Override
+        public void insertUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+            super.insertUpdate(e, a, f);
+            refreshLine(e.getOffset(), f);
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+            super.removeUpdate(e, a, f);
+            refreshLine(e.getOffset(), f);
+        }
+
+        private void refreshLine(int offset, ViewFactory f) {
+            int index = getViewIndex(offset, Position.Bias.Forward);
+            if (index < 0) return;
+
+            View line = getView(index);
+            int length = lineLength(line.getElement());
+            boolean unwrapped = line instanceof LongLineView;
+            boolean swap = unwrapped ? length <= LONG_LINE_CHARS / 2 : length > LONG_LINE_CHARS;
+            if (!swap) return;
+
+            replace(index, 1, new View[] { f.create(line.getElement()) });
+            if (getContainer() != null) {
+                getContainer().repaint();
+            }
+        }
+    }
+
+    /**
+     * Home or End (optionally extending the selection) that handles unwrapped
+     * lines directly and leaves wrapped ones to the standard action.
+     */
+    private static final class LineEdgeAction extends TextAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Action standard;
+        private final boolean begin;
+        private final boolean select;
+
+        LineEdgeAction(String name, Action standard, boolean begin) {
+            super(name);
+            this.standard = standard;
+            this.begin = begin;
+            this.select = name.equals(selectionBeginLineAction) || name.equals(selectionEndLineAction);
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            JTextComponent target = getTextComponent(e);
+            if (target == null) return;
+
+            int offset = target.getCaretPosition();
+            if (!isUnwrappedLine(target, offset)) {
+                standard.actionPerformed(e);
+                return;
+            }
+
+            Element line = Utilities.getParagraphElement(target, offset);
+            int edge = begin ? line.getStartOffset() : line.getEndOffset() - 1;
+            if (select) {
+                target.moveCaretPosition(edge);
+            } else {
+                target.setCaretPosition(edge);
+            }
+        }
+    }
+}
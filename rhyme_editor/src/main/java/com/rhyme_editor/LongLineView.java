@@ -0,0 +1,463 @@
+package com.rhyme_editor;
+
+import java.awt.Color;
+import java.awt.Container;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.LayeredHighlighter;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.text.StyledDocument;
+import javax.swing.text.Utilities;
+import javax.swing.text.View;
+import javax.swing.text.ViewFactory;
+
+/**
+ * LongLineView - Unwrapped view for a paragraph too long to lay out whole
+ *
+ * A paragraph view lays out every character of its line to find where rows
+ * wrap, and redoes it after each edit. This view shows the line as one
+ * unwrapped row split into segments of about SEGMENT_CHARS characters. A
+ * segment's width is measured the first time it is painted or hit-tested and
+ * kept until an edit or restyle touches it; unmeasured segments are estimated
+ * from the character width of the first one measured. Painting, caret placement and
+ * mouse hits therefore only measure the few segments they actually touch.
+ *
+ * Edits grow or shrink the segment they fall in, so the widths of the rest of
+ * the line stay valid; a segment that grows past twice the target size is
+ * split.
+ */
+public class LongLineView extends View {
+
+    static final int SEGMENT_CHARS = 1024;
+    private static final float UNMEASURED = -1;
+
+    private int[] lengths = new int[16];
+    private float[] widths = new float[16];
+    private int count;
+    // Width per character assumed for unmeasured segments; fixed once the
+    // first segment is measured so positions do not drift as more are
+    private float estimate = UNMEASURED;
+    // Preferred width last reported to the parent
+    private float reportedWidth = -1;
+    private final Segment text = new Segment();
+
+    public LongLineView(Element elem) {
+        super(elem);
+        split();
+    }
+
+    /**
+     * Cuts the whole line into fresh, unmeasured segments.
+     */
+    private void split() {
+        int length = getEndOffset() - getStartOffset();
+        count = 0;
+        for (int offset = 0; offset < length; offset += SEGMENT_CHARS) {
+            insertSegment(count, Math.min(SEGMENT_CHARS, length - offset));
+        }
+        if (count == 0) {
+            insertSegment(0, 0);
+        }
+    }
+
+    /**
+     * The current segment lengths, as updates left them (no re-split).
+     */
+    int[] segmentLengths() {
+        return Arrays.copyOf(lengths, count);
+    }
+
+    /**
+     * Re-splits the line if the segments no longer add up to it, which only
+     * happens if an update was not forwarded to this view.
+     */
+    private void sync() {
+        long total = 0;
+        for (int k = 0; k < count; k++) {
+            total += lengths[k];
+        }
+        if (total != getEndOffset() - getStartOffset()) {
+            split();
+        }
+    }
+
+    @Override
+    public float getPreferredSpan(int axis) {
+        sync();
+        if (axis == View.Y_AXIS) {
+            return lineMetrics().getHeight();
+        }
+        reportedWidth = totalWidth();
+        return reportedWidth;
+    }
+
+    @Override
+    public void paint(Graphics g, Shape a) {
+        sync();
+        Rectangle alloc = a.getBounds();
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = alloc;
+        }
+        Container host = getContainer();
+        FontMetrics base = lineMetrics();
+        float baseline = alloc.y + base.getAscent();
+        float average = averageCharWidth();
+
+        // Find the visible segments; only these get measured
+        float x = alloc.x;
+        int start = getStartOffset();
+        int first = -1;
+        int last = -1;
+        int firstStart = start;
+        int offset = start;
+        float firstX = x;
+        for (int k = 0; k < count && x <= clip.x + clip.width; k++) {
+            float width = widths[k] != UNMEASURED ? widths[k] : lengths[k] * average;
+            if (x + width >= clip.x) {
+                width = measure(k, offset);
+                if (first < 0) {
+                    first = k;
+                    firstStart = offset;
+                    firstX = x;
+                }
+                last = k;
+            }
+            x += width;
+            offset += lengths[k];
+        }
+        if (first < 0) return;
+
+        int visibleEnd = firstStart;
+        for (int k = first; k <= last; k++) {
+            visibleEnd += lengths[k];
+        }
+
+        // Selection and other layered highlights go under the text
+        if (host instanceof JTextComponent) {
+            Highlighter highlighter = ((JTextComponent) host).getHighlighter();
+            if (highlighter instanceof LayeredHighlighter) {
+                ((LayeredHighlighter) highlighter).paintLayeredHighlights(
+                    g, firstStart, visibleEnd, a, (JTextComponent) host, this);
+            }
+        }
+
+        Graphics2D g2d = (Graphics2D) g;
+        float runX = firstX;
+        int textEnd = textEnd();
+        Element paragraph = getElement();
+        StyledDocument doc = (StyledDocument) getDocument();
+        for (int i = paragraph.getElementIndex(firstStart); i < paragraph.getElementCount(); i++) {
+            Element leaf = paragraph.getElement(i);
+            int p0 = Math.max(leaf.getStartOffset(), firstStart);
+            int p1 = Math.min(leaf.getEndOffset(), Math.min(visibleEnd, textEnd));
+            if (p0 >= p1) {
+                if (leaf.getStartOffset() >= visibleEnd) break;
+                continue;
+            }
+
+            AttributeSet attributes = leaf.getAttributes();
+            Font font = doc.getFont(attributes);
+            Color foreground = doc.getForeground(attributes);
+            loadText(p0, p1);
+            g2d.setFont(font);
+            g2d.setColor(host != null && !host.isEnabled() ? Color.GRAY : foreground);
+            runX = Utilities.drawTabbedText(text, runX, baseline, g2d, null, p0);
+        }
+
+        // Report measured widths so the scrollable width converges
+        if (Math.abs(totalWidth() - reportedWidth) >= 1) {
+            preferenceChanged(null, true, false);
+        }
+    }
+
+    @Override
+    public Shape modelToView(int pos, Shape a, Position.Bias b) throws BadLocationException {
+        int start = getStartOffset();
+        if (pos < start || pos > getEndOffset()) {
+            throw new BadLocationException("Position outside the line", pos);
+        }
+        sync();
+        Rectangle alloc = a.getBounds();
+        float average = averageCharWidth();
+
+        float x = alloc.x;
+        int offset = start;
+        int k = 0;
+        while (k < count - 1 && offset + lengths[k] <= pos) {
+            x += widths[k] != UNMEASURED ? widths[k] : lengths[k] * average;
+            offset += lengths[k];
+            k++;
+        }
+        // Measure the segment so viewToModel sees the width the caret lies in
+        measure(k, offset);
+        x += textWidth(offset, Math.min(pos, textEnd()), x);
+        return new Rectangle((int) x, alloc.y, 0, lineMetrics().getHeight());
+    }
+
+    @Override
+    public int viewToModel(float fx, float fy, Shape a, Position.Bias[] biasReturn) {
+        biasReturn[0] = Position.Bias.Forward;
+        sync();
+        Rectangle alloc = a.getBounds();
+        int start = getStartOffset();
+        int textEnd = textEnd();
+        if (fx <= alloc.x) return start;
+
+        float average = averageCharWidth();
+        float x = alloc.x;
+        int offset = start;
+        for (int k = 0; k < count; k++) {
+            float width = widths[k] != UNMEASURED ? widths[k] : lengths[k] * average;
+            if (fx < x + width || k == count - 1) {
+                // Only the segment under fx is measured, so earlier segments
+                // keep the widths modelToView used
+                int end = Math.min(offset + lengths[k], textEnd);
+                return fx < x + measure(k, offset) ? offsetAt(offset, end, x, fx) : end;
+            }
+            x += width;
+            offset += lengths[k];
+        }
+        return textEnd;
+    }
+
+    /**
+     * Up and down leave the line; entering it lands at the caret's remembered x.
+     * The default implementation walks the row one character at a time.
+     */
+    @Override
+    public int getNextVisualPositionFrom(int pos, Position.Bias b, Shape a, int direction,
+                                         Position.Bias[] biasRet) throws BadLocationException {
+        if (direction != NORTH && direction != SOUTH) {
+            return super.getNextVisualPositionFrom(pos, b, a, direction, biasRet);
+        }
+        if (pos != -1) return -1;
+
+        biasRet[0] = Position.Bias.Forward;
+        Container host = getContainer();
+        if (!(host instanceof JTextComponent)) {
+            return direction == NORTH ? textEnd() : getStartOffset();
+        }
+        JTextComponent text = (JTextComponent) host;
+        Point magic = text.getCaret().getMagicCaretPosition();
+        float x;
+        if (magic != null) {
+            x = magic.x;
+        } else {
+            // Not set yet on the first move; use where the caret is now
+            Rectangle2D caret = text.modelToView2D(text.getCaretPosition());
+            x = caret != null ? (float) caret.getX() : 0;
+        }
+        return viewToModel(x, a.getBounds().y, a, biasRet);
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+        int pos = e.getOffset() - getStartOffset();
+        int length = e.getLength();
+
+        // Text typed at a boundary extends the segment before it
+        int k = 0;
+        int offset = 0;
+        while (k < count - 1 && offset + lengths[k] < pos) {
+            offset += lengths[k];
+            k++;
+        }
+        lengths[k] += length;
+        widths[k] = UNMEASURED;
+
+        if (lengths[k] > 2 * SEGMENT_CHARS) {
+            int remaining = lengths[k];
+            removeSegment(k);
+            for (int at = k; remaining > 0; at++) {
+                int piece = Math.min(SEGMENT_CHARS, remaining);
+                insertSegment(at, piece);
+                remaining -= piece;
+            }
+        }
+        lineChanged(a);
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+        int from = e.getOffset() - getStartOffset();
+        int to = from + e.getLength();
+
+        int offset = 0;
+        for (int k = 0; k < count && offset < to; ) {
+            int end = offset + lengths[k];
+            int overlap = Math.min(end, to) - Math.max(offset, from);
+            if (overlap > 0) {
+                lengths[k] -= overlap;
+                widths[k] = UNMEASURED;
+                to -= overlap;
+            }
+            if (lengths[k] == 0 && count > 1) {
+                removeSegment(k);
+            } else {
+                offset += lengths[k];
+                k++;
+            }
+        }
+        lineChanged(a);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+        // Restyled text (e.g. bold highlights) changes width
+        int from = e.getOffset() - getStartOffset();
+        int to = from + e.getLength();
+        int offset = 0;
+        for (int k = 0; k < count && offset < to; k++) {
+            if (offset + lengths[k] > from) {
+                widths[k] = UNMEASURED;
+            }
+            offset += lengths[k];
+        }
+        lineChanged(a);
+    }
+
+    private void lineChanged(Shape a) {
+        preferenceChanged(null, true, false);
+        Container host = getContainer();
+        if (host != null && a != null) {
+            Rectangle alloc = a.getBounds();
+            host.repaint(alloc.x, alloc.y, alloc.width, alloc.height);
+        }
+    }
+
+    /**
+     * Returns segment k's width, measuring it if needed. {@code offset} is its
+     * document offset.
+     */
+    private float measure(int k, int offset) {
+        if (widths[k] == UNMEASURED) {
+            int end = Math.min(offset + lengths[k], textEnd());
+            widths[k] = offset < end ? textWidth(offset, end, 0) : 0;
+            if (estimate == UNMEASURED && end - offset >= SEGMENT_CHARS / 2) {
+                estimate = widths[k] / (end - offset);
+            }
+        }
+        return widths[k];
+    }
+
+    /**
+     * Width of the text in [p0, p1), run by run, the way it is painted.
+     */
+    private float textWidth(int p0, int p1, float x) {
+        float width = 0;
+        Element paragraph = getElement();
+        for (int i = paragraph.getElementIndex(p0); p0 < p1 && i < paragraph.getElementCount(); i++) {
+            Element leaf = paragraph.getElement(i);
+            int end = Math.min(leaf.getEndOffset(), p1);
+            if (end <= p0) continue;
+            loadText(p0, end);
+            width += Utilities.getTabbedTextWidth(text, metricsFor(leaf), x + width, null, p0);
+            p0 = end;
+        }
+        return width;
+    }
+
+    /**
+     * Offset in [p0, p1] closest to {@code fx}, where p0 is drawn at {@code x}.
+     * Searches with the same widths modelToView uses; Utilities'
+     * getTabbedTextOffset rounds with a tab's glyph width rather than the
+     * space it is drawn as, so it disagrees with them after a tab.
+     */
+    private int offsetAt(int p0, int p1, float x, float fx) {
+        float target = fx - x;
+        int lo = p0;
+        int hi = p1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (textWidth(p0, mid, x) <= target) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (lo < p1 && target - textWidth(p0, lo, x) > textWidth(p0, lo + 1, x) - target) {
+            lo++;
+        }
+        return lo;
+    }
+
+    private float totalWidth() {
+        float average = averageCharWidth();
+        float total = 0;
+        for (int k = 0; k < count; k++) {
+            total += widths[k] != UNMEASURED ? widths[k] : lengths[k] * average;
+        }
+        return total;
+    }
+
+    private float averageCharWidth() {
+        return estimate != UNMEASURED ? estimate : lineMetrics().charWidth('n');
+    }
+
+    /**
+     * End of the drawable text: the paragraph's closing newline is not drawn.
+     */
+    private int textEnd() {
+        return Math.max(getStartOffset(), getEndOffset() - 1);
+    }
+
+    private void loadText(int p0, int p1) {
+        try {
+            getDocument().getText(p0, p1 - p0, text);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Line view out of sync with its document", e);
+        }
+    }
+
+    private FontMetrics metricsFor(Element leaf) {
+        Document doc = getDocument();
+        Font font = doc instanceof StyledDocument
+            ? ((StyledDocument) doc).getFont(leaf.getAttributes())
+            : getContainer().getFont();
+        return getContainer().getFontMetrics(font);
+    }
+
+    private FontMetrics lineMetrics() {
+        Container host = getContainer();
+        Document doc = getDocument();
+        Font font = doc instanceof StyledDocument
+            ? ((StyledDocument) doc).getFont(getAttributes())
+            : host.getFont();
+        return host.getFontMetrics(font);
+    }
+
+    private void insertSegment(int index, int length) {
+        if (count == lengths.length) {
+            lengths = Arrays.copyOf(lengths, count * 2);
+            widths = Arrays.copyOf(widths, count * 2);
+        }
+        System.arraycopy(lengths, index, lengths, index + 1, count - index);
+        System.arraycopy(widths, index, widths, index + 1, count - index);
+        lengths[index] = length;
+        widths[index] = UNMEASURED;
+        count++;
+    }
+
+    private void removeSegment(int index) {
+        System.arraycopy(lengths, index + 1, lengths, index, count - index - 1);
+        System.arraycopy(widths, index + 1, widths, index, count - index - 1);
+        count--;
+    }
+}
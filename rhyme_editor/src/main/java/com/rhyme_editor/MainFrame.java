@@ -1,25 +1,46 @@
 package com.rhyme_editor;
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import javax.swing.BorderFactory;
 import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
+import javax.swing.JList;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTabbedPane;
 import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Utilities;
 
 public class MainFrame extends JFrame implements ActionListener {
 
+    // Most songbook hits listed at once
+    private static final int SONGBOOK_RESULTS = 500;
+
     private int _width;
     private int _height;
 
@@ -27,11 +48,15 @@ public class MainFrame extends JFrame implements ActionListener {
     private JMenu fileMenu = new JMenu("File");
     private JMenu editMenu = new JMenu("Edit");
     private JMenu viewMenu = new JMenu("View");
+    private JMenu songbookMenu = new JMenu("Songbook");
     
     private JMenuItem newMenuItem = new JMenuItem("New");
     private JMenuItem openMenuItem = new JMenuItem("Open");
     private JMenuItem saveMenuItem = new JMenuItem("Save");
     private JMenuItem saveAsMenuItem = new JMenuItem("Save As...");
+    private JMenuItem closeTabMenuItem = new JMenuItem("Close Tab");
+    private JMenuItem exportHtmlMenuItem = new JMenuItem("Export as HTML...");
+    private JMenuItem exportRtfMenuItem = new JMenuItem("Export as RTF...");
     private JMenuItem exitMenuItem = new JMenuItem("Exit");
     
     private JMenuItem undoMenuItem = new JMenuItem("Undo");
@@ -41,11 +66,41 @@ public class MainFrame extends JFrame implements ActionListener {
     private JMenuItem pasteMenuItem = new JMenuItem("Paste");
     
     private JCheckBoxMenuItem highlightMenuItem = new JCheckBoxMenuItem("Highlight Rhymes", true);
+    private JMenuItem indexSongbookMenuItem = new JMenuItem("Index Songbook Folder...");
+    private JMenuItem findInSongbookMenuItem = new JMenuItem("Find Rhymes in Songbook...");
+
+    private JCheckBoxMenuItem recordSessionMenuItem = new JCheckBoxMenuItem("Record Typing Session");
     
     private JMenuBar menuBar = new JMenuBar();
-    private EditorPane editor = new EditorPane();
-    private FileManager fileManager = new FileManager();
+    private JTabbedPane tabbedPane = new JTabbedPane();
+    // Open documents, in tab order
+    private final List<DocumentTab> tabs = new ArrayList<>();
+    private DocumentTab activeTab;
+    // The active tab's editor and file
+    private EditorPane editor;
+    private FileManager fileManager;
     private StatusBar statusBar = new StatusBar();
+    private SessionRecorder sessionRecorder;
+    private final AnalysisContext analysisContext = new AnalysisContext();
+    private final FileWatcher fileWatcher = new FileWatcher(this::fileChangedOnDisk);
+    private final RhymeDetector songbookDetector = analysisContext.getRhymeDetector();
+    private SongbookIndex songbookIndex;
+
+    /**
+     * One open document: its editor, its file and the path being watched for it.
+     */
+    private static final class DocumentTab {
+        final EditorPane editor;
+        final FileManager fileManager;
+        Path watchedPath;
+        // A change on disk that arrived during an export, applied once it ends
+        Runnable deferredReload;
+
+        DocumentTab(EditorPane editor, FileManager fileManager) {
+            this.editor = editor;
+            this.fileManager = fileManager;
+        }
+    }
 
     public MainFrame(int width, int height) {
         this._width = width;
@@ -54,7 +109,14 @@ public class MainFrame extends JFrame implements ActionListener {
 
     public void createWindow() {
         setTitle("Rhyme Editor - Untitled");
-        setDefaultCloseOperation(EXIT_ON_CLOSE);
+        // Closing asks about unsaved tabs first, see exitApplication()
+        setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                exitApplication();
+            }
+        });
         setSize(_width, _height);
         setLocationRelativeTo(null); // Center on screen
         
@@ -73,7 +135,9 @@ public class MainFrame extends JFrame implements ActionListener {
         setupMenu();
 
         // Add components
-        mainPanel.add(editor.getScrollPane(), BorderLayout.CENTER);
+        tabbedPane.setBorder(BorderFactory.createEmptyBorder());
+        tabbedPane.addChangeListener(e -> tabSelected());
+        mainPanel.add(tabbedPane, BorderLayout.CENTER);
         mainPanel.add(statusBar, BorderLayout.SOUTH);
         
         add(mainPanel);
@@ -81,8 +145,7 @@ public class MainFrame extends JFrame implements ActionListener {
         // Setup keyboard shortcuts
         setupKeyboardShortcuts();
 
-        // Update status bar on text changes
-        editor.addTextChangeListener(() -> updateStatusBar());
+        addTab(new FileManager(), null);
 
         // Show window
         setVisible(true);
@@ -103,13 +166,19 @@ public class MainFrame extends JFrame implements ActionListener {
             Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()));
         saveAsMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, 
             Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx() | InputEvent.SHIFT_DOWN_MASK));
+        closeTabMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_W, 
+            Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()));
         
         fileMenu.add(newMenuItem);
         fileMenu.add(openMenuItem);
+        fileMenu.add(closeTabMenuItem);
         fileMenu.addSeparator();
         fileMenu.add(saveMenuItem);
         fileMenu.add(saveAsMenuItem);
         fileMenu.addSeparator();
+        fileMenu.add(exportHtmlMenuItem);
+        fileMenu.add(exportRtfMenuItem);
+        fileMenu.addSeparator();
         fileMenu.add(exitMenuItem);
 
         // Edit menu
@@ -136,12 +205,23 @@ public class MainFrame extends JFrame implements ActionListener {
         // View menu
         viewMenu.setMnemonic(KeyEvent.VK_V);
         viewMenu.add(highlightMenuItem);
+        viewMenu.addSeparator();
+        viewMenu.add(recordSessionMenuItem);
+
+        // Songbook menu
+        findInSongbookMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_R,
+            Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx() | InputEvent.SHIFT_DOWN_MASK));
+        songbookMenu.add(indexSongbookMenuItem);
+        songbookMenu.add(findInSongbookMenuItem);
 
         // Add action listeners
         newMenuItem.addActionListener(this);
         openMenuItem.addActionListener(this);
         saveMenuItem.addActionListener(this);
         saveAsMenuItem.addActionListener(this);
+        closeTabMenuItem.addActionListener(this);
+        exportHtmlMenuItem.addActionListener(this);
+        exportRtfMenuItem.addActionListener(this);
         exitMenuItem.addActionListener(this);
         
         undoMenuItem.addActionListener(this);
@@ -151,11 +231,15 @@ public class MainFrame extends JFrame implements ActionListener {
         pasteMenuItem.addActionListener(this);
         
         highlightMenuItem.addActionListener(this);
+        recordSessionMenuItem.addActionListener(this);
+        indexSongbookMenuItem.addActionListener(this);
+        findInSongbookMenuItem.addActionListener(this);
 
         // Build menu bar
         menuBar.add(fileMenu);
         menuBar.add(editMenu);
         menuBar.add(viewMenu);
+        menuBar.add(songbookMenu);
         
         // Style menu bar
         menuBar.setBackground(Color.WHITE);
@@ -168,12 +252,501 @@ public class MainFrame extends JFrame implements ActionListener {
         // Additional shortcuts can be added here
     }
 
+    /**
+     * Opens a document in a new tab and selects it. All tabs share one
+     * analysis context, so a background tab costs no threads of its own.
+     */
+    private DocumentTab addTab(FileManager manager, String text) {
+        DocumentTab tab = new DocumentTab(new EditorPane(analysisContext), manager);
+        if (!highlightMenuItem.isSelected()) {
+            tab.editor.setHighlightingEnabled(false);
+        }
+        if (text != null) {
+            tab.editor.setPaneText(text);
+        }
+
+        // Update status bar on text changes
+        tab.editor.addTextChangeListener(() -> {
+            if (tab == activeTab) updateStatusBar();
+        });
+
+        // Syllables follow the caret line
+        tab.editor.addCaretListener(e -> {
+            if (tab == activeTab) statusBar.updateLineSyllables(tab.editor.getCaretLineSyllables());
+        });
+
+        // Keep the songbook index current as songs are saved
+        manager.addSaveListener((file, saved) -> attachSongbookFor(file, index -> {
+            if (index.isSong(file.toPath())) {
+                index.updateFile(file.toPath(), saved);
+            }
+        }));
+
+        tabs.add(tab);
+        tabbedPane.addTab(manager.getCurrentFileName(), tab.editor.getScrollPane());
+        tabbedPane.setSelectedIndex(tabs.size() - 1);
+        watchFile(tab);
+        return tab;
+    }
+
+    /**
+     * Sends the previous tab to the background, where its analysis may be
+     * compacted, and brings the selected one up to date.
+     */
+    private void tabSelected() {
+        int index = tabbedPane.getSelectedIndex();
+        DocumentTab selected = index >= 0 ? tabs.get(index) : null;
+        if (selected == activeTab) return;
+
+        if (activeTab != null && tabs.contains(activeTab)) {
+            analysisContext.markIdle(activeTab.editor);
+        }
+        activeTab = selected;
+        if (selected == null) return;
+
+        editor = selected.editor;
+        fileManager = selected.fileManager;
+        analysisContext.markActive(editor);
+        updateTitle();
+        updateStatusBar();
+        SwingUtilities.invokeLater(() -> editor.requestFocusInWindow());
+    }
+
+    /**
+     * Closes the active tab, offering to save unsaved changes first. The last
+     * tab is replaced by an empty one.
+     */
+    private void closeActiveTab() {
+        DocumentTab tab = activeTab;
+        if (!confirmDiscard(tab, "Close Tab")) return;
+        removeTab(tab);
+    }
+
+    /**
+     * Offers to save a tab with unsaved changes. Returns false if the user
+     * cancels, in which case the tab must stay open.
+     */
+    private boolean confirmDiscard(DocumentTab tab, String title) {
+        if (tab.fileManager.isSynced(tab.editor.getPaneText())) return true;
+
+        int result = JOptionPane.showConfirmDialog(this,
+            "Save changes to " + tab.fileManager.getCurrentFileName() + "?",
+            title,
+            JOptionPane.YES_NO_CANCEL_OPTION);
+        if (result == JOptionPane.CANCEL_OPTION || result == JOptionPane.CLOSED_OPTION) return false;
+        if (result == JOptionPane.YES_OPTION) {
+            tab.fileManager.save(tab.editor.getPaneText());
+            // Save dialog cancelled
+            return tab.fileManager.isSynced(tab.editor.getPaneText());
+        }
+        return true;
+    }
+
+    /**
+     * Exits from the Exit item or the window's close button, offering to save
+     * each tab with unsaved changes first. Cancelling any of them keeps the
+     * editor open.
+     */
+    private void exitApplication() {
+        for (DocumentTab tab : new ArrayList<>(tabs)) {
+            if (tab.fileManager.isSynced(tab.editor.getPaneText())) continue;
+            // Show the tab being asked about
+            tabbedPane.setSelectedIndex(tabs.indexOf(tab));
+            if (!confirmDiscard(tab, "Exit")) return;
+        }
+
+        if (sessionRecorder != null) {
+            sessionRecorder.stop();
+        }
+        dispose();
+        System.exit(0);
+    }
+
+    private void removeTab(DocumentTab tab) {
+        int index = tabs.indexOf(tab);
+        if (tab.watchedPath != null) {
+            unwatch(tab);
+        }
+        analysisContext.release(tab.editor);
+        if (activeTab == tab) {
+            tab.editor.suspendHighlighting();
+            activeTab = null;
+        }
+        tabs.remove(index);
+        tabbedPane.removeTabAt(index);
+        if (tabs.isEmpty()) {
+            addTab(new FileManager(), null);
+        }
+    }
+
+    private DocumentTab findTab(Path path) {
+        for (DocumentTab tab : tabs) {
+            if (path.equals(tab.watchedPath)) return tab;
+        }
+        return null;
+    }
+
+    /**
+     * Opens a file in its own tab, or selects its tab if it is already open.
+     * An empty untitled tab is replaced rather than kept.
+     */
+    private void openFile() {
+        FileManager manager = new FileManager();
+        String openedText = manager.open();
+        if (openedText == null) return;
+
+        DocumentTab existing = findTab(manager.getCurrentFile().toPath().toAbsolutePath().normalize());
+        if (existing != null) {
+            tabbedPane.setSelectedIndex(tabs.indexOf(existing));
+            return;
+        }
+
+        DocumentTab blank = activeTab;
+        boolean replaceBlank = blank != null && blank.fileManager.getCurrentFile() == null
+            && blank.editor.getPaneText().isEmpty();
+        addTab(manager, openedText);
+        if (replaceBlank) {
+            removeTab(blank);
+        }
+        attachSongbookFor(manager.getCurrentFile(), index -> { });
+    }
+
+    private void updateTitle() {
+        setTitle("Rhyme Editor - " + fileManager.getCurrentFileName());
+        tabbedPane.setTitleAt(tabs.indexOf(activeTab), fileManager.getCurrentFileName());
+    }
+
+    /**
+     * Exports the highlighted document in the background. The editor is held
+     * still meanwhile, and changes on disk wait, so the export sees one
+     * consistent text and style.
+     */
+    private void exportHighlights(HighlightExporter.Format format, String description) {
+        File target = fileManager.chooseExportFile(description, format.getExtension());
+        if (target == null) return;
+
+        DocumentTab tab = activeTab;
+        EditorPane source = tab.editor;
+        source.beginExport();
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                new HighlightExporter().exportDocument(source.getStyledDocument(), target.toPath(), format);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                source.endExport();
+                if (tab.deferredReload != null) {
+                    Runnable reload = tab.deferredReload;
+                    tab.deferredReload = null;
+                    reload.run();
+                }
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "Exported to " + target.getName(),
+                        "Export",
+                        JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "Error exporting file: " + ex.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Starts or stops writing edits to a trace for SessionReplay.
+     */
+    private void toggleSessionRecording() {
+        if (sessionRecorder != null) {
+            IOException error = sessionRecorder.stop();
+            sessionRecorder = null;
+            if (error != null) {
+                JOptionPane.showMessageDialog(this,
+                    "Error writing session trace: " + error.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            }
+            recordSessionMenuItem.setSelected(false);
+            return;
+        }
+
+        File target = fileManager.chooseExportFile("Typing Session", "trace");
+        if (target == null) {
+            recordSessionMenuItem.setSelected(false);
+            return;
+        }
+        try {
+            sessionRecorder = new SessionRecorder(editor.getDocument(), target.toPath());
+            recordSessionMenuItem.setSelected(true);
+        } catch (IOException ex) {
+            recordSessionMenuItem.setSelected(false);
+            JOptionPane.showMessageDialog(this,
+                "Error creating session trace: " + ex.getMessage(),
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Picks up the index of the songbook folder a file belongs to, if any.
+     * Finding, opening and mapping the index happen in the background; then
+     * {@code whenAttached} runs on the EDT with the index the file is under.
+     */
+    private void attachSongbookFor(File file, Consumer<SongbookIndex> whenAttached) {
+        SongbookIndex current = songbookIndex;
+        new SwingWorker<SongbookIndex, Void>() {
+            @Override
+            protected SongbookIndex doInBackground() throws Exception {
+                Path root = SongbookIndex.findRoot(file.toPath());
+                if (root == null) return null;
+                if (current != null && current.getRoot().equals(root)) return current;
+                return SongbookIndex.open(root, songbookDetector);
+            }
+
+            @Override
+            protected void done() {
+                SongbookIndex index;
+                try {
+                    index = get();
+                } catch (Exception e) {
+                    // The editor works without it
+                    return;
+                }
+                if (index == null) return;
+                if (index != songbookIndex) {
+                    // Replaced meanwhile, and already closed
+                    if (index == current) return;
+                    if (songbookIndex != null && songbookIndex.getRoot().equals(index.getRoot())) {
+                        // Another attach opened the same folder first
+                        index.close();
+                        index = songbookIndex;
+                    } else {
+                        if (songbookIndex != null) {
+                            songbookIndex.close();
+                        }
+                        songbookIndex = index;
+                    }
+                }
+                whenAttached.accept(index);
+            }
+        }.execute();
+    }
+
+    private void indexSongbookFolder() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Index Songbook Folder");
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        File current = fileManager.getCurrentFile();
+        chooser.setCurrentDirectory(current != null ? current.getParentFile()
+                                                    : new File(System.getProperty("user.home")));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        Path root = chooser.getSelectedFile().toPath().toAbsolutePath().normalize();
+        SongbookIndex previous = songbookIndex;
+        new SwingWorker<SongbookIndex, Void>() {
+            private int indexed;
+
+            @Override
+            protected SongbookIndex doInBackground() throws Exception {
+                SongbookIndex index = previous != null && previous.getRoot().equals(root)
+                    ? previous : SongbookIndex.open(root, songbookDetector);
+                indexed = index.indexFolder().get();
+                return index;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    SongbookIndex index = get();
+                    if (index != songbookIndex && songbookIndex != null) {
+                        songbookIndex.close();
+                    }
+                    songbookIndex = index;
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "Indexed " + indexed + " new or changed songs; "
+                            + index.getSongCount() + " songs in the songbook.",
+                        "Songbook",
+                        JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "Error indexing folder: " + ex.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Lists lines across the songbook that rhyme with the selected word, or
+     * the word at the caret.
+     */
+    private void findRhymesInSongbook() {
+        if (songbookIndex == null) {
+            JOptionPane.showMessageDialog(this,
+                "Index a songbook folder first (Songbook > Index Songbook Folder...).",
+                "Songbook",
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        String word = editor.getSelectedText();
+        if (word == null || word.trim().isEmpty()) {
+            try {
+                int caret = editor.getCaretPosition();
+                int start = Utilities.getWordStart(editor, caret);
+                int end = Utilities.getWordEnd(editor, caret);
+                word = editor.getText(start, end - start);
+            } catch (BadLocationException e) {
+                word = "";
+            }
+        }
+        word = (String) JOptionPane.showInputDialog(this, "Find rhymes for:", "Songbook",
+                                                    JOptionPane.QUESTION_MESSAGE, null, null, word.trim());
+        if (word == null || word.trim().isEmpty()) return;
+
+        String query = word.trim();
+        SongbookIndex index = songbookIndex;
+        new SwingWorker<List<String>, Void>() {
+            // Live hits in the whole songbook; only the first SONGBOOK_RESULTS are listed
+            private int found;
+
+            @Override
+            protected List<String> doInBackground() throws Exception {
+                found = index.countRhymes(query);
+                List<String> lines = new ArrayList<>();
+                Map<Path, String> texts = new HashMap<>();
+                for (SongbookIndex.Hit hit : index.findRhymes(query, SONGBOOK_RESULTS)) {
+                    String text = texts.get(hit.file);
+                    if (text == null) {
+                        try {
+                            text = FileManager.read(hit.file.toFile());
+                        } catch (IOException e) {
+                            text = "";
+                        }
+                        texts.put(hit.file, text);
+                    }
+                    lines.add(index.getRoot().relativize(hit.file) + ":  "
+                              + SongbookIndex.lineAt(text, hit.offset));
+                }
+                return lines;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    List<String> lines = get();
+                    if (lines.isEmpty()) {
+                        JOptionPane.showMessageDialog(MainFrame.this,
+                            "No rhymes for \"" + query + "\" in the songbook.",
+                            "Songbook",
+                            JOptionPane.INFORMATION_MESSAGE);
+                        return;
+                    }
+                    JList<String> list = new JList<>(lines.toArray(new String[0]));
+                    JScrollPane scroll = new JScrollPane(list);
+                    scroll.setPreferredSize(new Dimension(640, 360));
+                    JOptionPane.showMessageDialog(MainFrame.this, scroll,
+                        "Rhymes for \"" + query + "\" (" + Math.max(found, lines.size()) + " found)",
+                        JOptionPane.PLAIN_MESSAGE);
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "Error searching songbook: " + ex.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Watches the tab's current file, moving the watch if it was saved under
+     * a new name.
+     */
+    private void watchFile(DocumentTab tab) {
+        File current = tab.fileManager.getCurrentFile();
+        Path path = current != null ? current.toPath().toAbsolutePath().normalize() : null;
+        if (path == null ? tab.watchedPath == null : path.equals(tab.watchedPath)) return;
+
+        if (tab.watchedPath != null) {
+            unwatch(tab);
+        }
+        tab.watchedPath = path;
+        if (path != null) {
+            fileWatcher.watch(path);
+        }
+    }
+
+    private void unwatch(DocumentTab tab) {
+        Path path = tab.watchedPath;
+        tab.watchedPath = null;
+        // Another tab may have saved over the same file
+        if (findTab(path) == null) {
+            fileWatcher.unwatch(path);
+        }
+    }
+
+    /**
+     * Called on the watcher thread; reads the new contents there and hands
+     * them to the EDT.
+     */
+    private void fileChangedOnDisk(Path path) {
+        String diskText;
+        try {
+            diskText = FileManager.read(path.toFile());
+        } catch (IOException e) {
+            // Deleted or mid-write; a later event will bring the final state
+            return;
+        }
+        SwingUtilities.invokeLater(() -> reloadFromDisk(path, diskText));
+    }
+
+    /**
+     * Applies another program's changes to an open file as edits, whichever
+     * tab it is in. Unsaved changes in the editor are only overwritten if the
+     * user agrees.
+     */
+    private void reloadFromDisk(Path path, String diskText) {
+        DocumentTab tab = findTab(path);
+        if (tab == null) return;
+        if (tab.editor.isExporting()) {
+            tab.deferredReload = () -> reloadFromDisk(path, diskText);
+            return;
+        }
+        FileManager manager = tab.fileManager;
+        // Our own save, or a touch that changed nothing
+        if (manager.isSynced(diskText)) return;
+
+        if (!manager.isSynced(tab.editor.getPaneText())) {
+            int result = JOptionPane.showConfirmDialog(this,
+                manager.getCurrentFileName() + " was changed by another program.\n"
+                    + "Reload it and lose your unsaved changes?",
+                "File Changed",
+                JOptionPane.YES_NO_OPTION);
+            if (result != JOptionPane.YES_OPTION) {
+                // Keep the editor's text; saving will overwrite the other change
+                manager.markSynced(diskText);
+                return;
+            }
+        }
+
+        manager.markSynced(diskText);
+        tab.editor.reloadText(diskText);
+    }
+
     private void updateStatusBar() {
         int wordCount = editor.getWordCount();
         int charCount = editor.getCharCount();
         int rhymeCount = editor.getRhymeCount();
         
         statusBar.updateStats(wordCount, charCount, rhymeCount);
+        statusBar.updateLineSyllables(editor.getCaretLineSyllables());
     }
 
     @Override
@@ -182,38 +755,33 @@ public class MainFrame extends JFrame implements ActionListener {
         
         // File menu actions
         if (source == newMenuItem) {
-            int result = JOptionPane.showConfirmDialog(this, 
-                "Do you want to save changes?", 
-                "New File", 
-                JOptionPane.YES_NO_CANCEL_OPTION);
-            
-            if (result == JOptionPane.YES_OPTION) {
-                fileManager.save(editor.getPaneText());
-            }
-            if (result != JOptionPane.CANCEL_OPTION) {
-                editor.setPaneText("");
-                fileManager.resetFile();
-                setTitle("Rhyme Editor - Untitled");
-            }
+            addTab(new FileManager(), null);
         } 
         else if (source == openMenuItem) {
-            String openedText = fileManager.open();
-            if (openedText != null) {
-                editor.setPaneText(openedText);
-                setTitle("Rhyme Editor - " + fileManager.getCurrentFileName());
-            }
+            openFile();
+        } 
+        else if (source == closeTabMenuItem) {
+            closeActiveTab();
         } 
         else if (source == saveMenuItem) {
             fileManager.save(editor.getPaneText());
-            setTitle("Rhyme Editor - " + fileManager.getCurrentFileName());
+            updateTitle();
+            watchFile(activeTab);
         } 
         else if (source == saveAsMenuItem) {
             fileManager.resetFile();
             fileManager.save(editor.getPaneText());
-            setTitle("Rhyme Editor - " + fileManager.getCurrentFileName());
+            updateTitle();
+            watchFile(activeTab);
         } 
+        else if (source == exportHtmlMenuItem) {
+            exportHighlights(HighlightExporter.Format.HTML, "HTML");
+        }
+        else if (source == exportRtfMenuItem) {
+            exportHighlights(HighlightExporter.Format.RTF, "Rich Text");
+        }
         else if (source == exitMenuItem) {
-            System.exit(0);
+            exitApplication();
         }
         
         // Edit menu actions
@@ -235,7 +803,18 @@ public class MainFrame extends JFrame implements ActionListener {
         
         // View menu actions
         else if (source == highlightMenuItem) {
-            editor.setHighlightingEnabled(highlightMenuItem.isSelected());
+            for (DocumentTab tab : tabs) {
+                tab.editor.setHighlightingEnabled(highlightMenuItem.isSelected());
+            }
+        }
+        else if (source == indexSongbookMenuItem) {
+            indexSongbookFolder();
+        }
+        else if (source == findInSongbookMenuItem) {
+            findRhymesInSongbook();
+        }
+        else if (source == recordSessionMenuItem) {
+            toggleSessionRecording();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package com.rhyme_editor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * ParallelEndingsBenchmark - Times ending collection at several pool sizes
+ *
+ * Usage: ParallelEndingsBenchmark [kilobytes] [maxThreads] [rounds]
+ *
+ * Builds a lyrics-like text (4096 KB by default), then times
+ * {@link RhymeDetector#collectEndings(String, ForkJoinPool)} with pools of 1,
+ * 2, 4, ... threads up to maxThreads (the number of processors by default),
+ * plus the sequential path for reference. Each size is warmed up first and
+ * then averaged over the given rounds; the speedup is relative to the
+ * one-thread pool. Every result is checked against the sequential table
+ * during warm-up.
+ */
+public class ParallelEndingsBenchmark {
+
+    private static final String[] WORDS = {
+        "light", "night", "bright", "the", "and", "fire", "higher", "we", "ran",
+        "through", "rain", "again", "pain", "a", "day", "away", "stay", "you",
+        "heart", "apart", "start", "dream", "stream", "seem", "road", "home"
+    };
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int kilobytes = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+                                         : Runtime.getRuntime().availableProcessors();
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        String text = lyrics(kilobytes * 1024);
+        RhymeDetector detector = new RhymeDetector();
+        System.out.printf("Text: %d chars, %d processors available%n",
+                          text.length(), Runtime.getRuntime().availableProcessors());
+
+        Map<String, List<String>> expected = detector.collectEndingsSequential(text);
+        double sequential = time(rounds, () -> detector.collectEndingsSequential(text), expected);
+        System.out.printf("%-12s %10.1f ms%n", "sequential", sequential);
+
+        List<Integer> sizes = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            sizes.add(threads);
+        }
+        sizes.add(maxThreads);
+
+        double single = 0;
+        for (int threads : sizes) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                double ms = time(rounds, () -> detector.collectEndings(text, pool), expected);
+                if (threads == 1) {
+                    single = ms;
+                }
+                System.out.printf("%-12s %10.1f ms   speedup %.2fx%n",
+                                  threads + (threads == 1 ? " thread" : " threads"), ms, single / ms);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static String lyrics(int length) {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(length + 16);
+        int wordsOnLine = 0;
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            if (++wordsOnLine == 7) {
+                text.append(random.nextInt(5) == 0 ? "\n\n" : "\n");
+                wordsOnLine = 0;
+            } else {
+                text.append(' ');
+            }
+        }
+        return text.toString();
+    }
+
+    private static double time(int rounds, Supplier<Map<String, List<String>>> collect,
+                               Map<String, List<String>> expected) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            if (!collect.get().equals(expected)) {
+                throw new IllegalStateException("Result differs from the sequential table");
+            }
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            collect.get();
+        }
+        return (System.nanoTime() - start) / 1e6 / rounds;
+    }
+}
@@ -0,0 +1,128 @@
+package com.rhyme_editor;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyleContext;
+
+/**
+ * RhymeColorAllocator - Keeps each rhyme group's colour stable across passes
+ *
+ * Every rhyme ending holds a colour slot for as long as its group exists. New
+ * groups take the lowest free slot, so adding or removing one group never
+ * recolours another. Slot attributes come from a palette of immutable
+ * {@link AttributeSet}s built once, instead of new styles on every pass.
+ *
+ * Slots are assigned on the analysis thread and cleared on the EDT, so the
+ * mutable state is guarded by this object's monitor.
+ */
+public class RhymeColorAllocator {
+
+    // Enhanced color palette with better contrast
+    private static final Color[] COLORS = {
+        new Color(220, 38, 38),   // Red
+        new Color(37, 99, 235),   // Blue
+        new Color(22, 163, 74),   // Green
+        new Color(234, 88, 12),   // Orange
+        new Color(147, 51, 234),  // Purple
+        new Color(14, 165, 233),  // Cyan
+        new Color(219, 39, 119),  // Pink
+        new Color(202, 138, 4)    // Yellow-gold
+    };
+
+    /** Number of slot colours; higher slots reuse them in turn. */
+    public static final int PALETTE_SIZE = COLORS.length;
+    private static final List<Color> PALETTE_COLORS = Collections.unmodifiableList(Arrays.asList(COLORS));
+
+    public static final Color DEFAULT_COLOR = new Color(30, 30, 30);
+
+    private static final AttributeSet[] PALETTE = new AttributeSet[COLORS.length];
+    private static final AttributeSet DEFAULT_ATTRIBUTES;
+
+    static {
+        StyleContext context = StyleContext.getDefaultStyleContext();
+        for (int i = 0; i < COLORS.length; i++) {
+            AttributeSet attributes = context.addAttribute(SimpleAttributeSet.EMPTY,
+                                                           StyleConstants.Foreground, COLORS[i]);
+            PALETTE[i] = context.addAttribute(attributes, StyleConstants.Bold, Boolean.TRUE);
+        }
+        AttributeSet attributes = context.addAttribute(SimpleAttributeSet.EMPTY,
+                                                       StyleConstants.Foreground, DEFAULT_COLOR);
+        DEFAULT_ATTRIBUTES = context.addAttribute(attributes, StyleConstants.FontSize, 16);
+    }
+
+    private final Map<String, Integer> slotByEnding = new HashMap<>();
+    private final TreeSet<Integer> freeSlots = new TreeSet<>();
+    private int nextSlot = 0;
+
+    /**
+     * Frees the slots of endings that are gone and assigns slots to new ones.
+     * New endings are handled in sorted order so the result does not depend on
+     * map iteration order. Returns the slot of every ending, taken under the
+     * same lock, so a concurrent {@link #clear()} cannot leave one without a slot.
+     */
+    public synchronized Map<String, Integer> update(Collection<String> endings) {
+        Set<String> current = new HashSet<>(endings);
+
+        Iterator<Map.Entry<String, Integer>> it = slotByEnding.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Integer> entry = it.next();
+            if (!current.contains(entry.getKey())) {
+                freeSlots.add(entry.getValue());
+                it.remove();
+            }
+        }
+
+        List<String> added = new ArrayList<>();
+        for (String ending : current) {
+            if (!slotByEnding.containsKey(ending)) {
+                added.add(ending);
+            }
+        }
+        Collections.sort(added);
+
+        for (String ending : added) {
+            Integer slot = freeSlots.pollFirst();
+            slotByEnding.put(ending, slot != null ? slot : nextSlot++);
+        }
+        return new HashMap<>(slotByEnding);
+    }
+
+    public synchronized void clear() {
+        slotByEnding.clear();
+        freeSlots.clear();
+        nextSlot = 0;
+    }
+
+    public static AttributeSet attributesFor(int slot) {
+        return PALETTE[slot % PALETTE.length];
+    }
+
+    public static Color colorFor(int slot) {
+        return COLORS[slot % COLORS.length];
+    }
+
+    /**
+     * The slot colours in slot order, PALETTE_SIZE of them.
+     */
+    public static List<Color> paletteColors() {
+        return PALETTE_COLORS;
+    }
+
+    public static AttributeSet defaultAttributes() {
+        return DEFAULT_ATTRIBUTES;
+    }
+}
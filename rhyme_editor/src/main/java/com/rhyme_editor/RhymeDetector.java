@@ -1,11 +1,15 @@
 package com.rhyme_editor;
+import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.regex.Pattern;
 
 /**
@@ -16,9 +20,35 @@ import java.util.regex.Pattern;
  */
 public class RhymeDetector {
 
-    private static final int MIN_WORD_LENGTH = 3;
+    /**
+     * Bump whenever tokenization, ending extraction or filtering changes,
+     * so persisted analysis results from older versions are ignored.
+     */
+    public static final int CONFIG_VERSION = 1;
+
+    static final int MIN_WORD_LENGTH = 3;
+
+    // Inputs at least this long are analysed in parallel
+    private static final int PARALLEL_THRESHOLD = 256 * 1024;
+    // Pieces are not split further below this size
+    private static final int PARALLEL_LEAF_SIZE = 64 * 1024;
     private static final Pattern VOWELS = Pattern.compile("[aeiou]");
 
+    // Runs parallel analysis; null means the common pool
+    private final ForkJoinPool pool;
+
+    public RhymeDetector() {
+        this(null);
+    }
+
+    /**
+     * Creates a detector that analyses large texts in the given pool rather
+     * than in the common pool.
+     */
+    public RhymeDetector(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     /**
      * Analyzes text and groups words that rhyme.
      *
@@ -26,11 +56,41 @@ public class RhymeDetector {
      * @return Map of rhyme endings to lists of words that rhyme.
      */
     public Map<String, List<String>> findRhymes(String text) {
-        Map<String, List<String>> rhymeGroups = new HashMap<>();
+        return groupEndings(collectEndings(text));
+    }
+
+    /**
+     * Builds the ending table for a piece of text: each phonetic ending mapped
+     * to the distinct words that share it, in order of first appearance.
+     * Tables of consecutive pieces can be combined with {@link #mergeEndings}.
+     */
+    public Map<String, List<String>> collectEndings(String text) {
+        ForkJoinPool analysisPool = pool != null ? pool : ForkJoinPool.commonPool();
+        if (text != null && text.length() >= PARALLEL_THRESHOLD
+                && analysisPool.getParallelism() > 1) {
+            return collectEndings(text, analysisPool);
+        }
+        return collectEndingsSequential(text);
+    }
+
+    /**
+     * Parallel variant of {@link #collectEndings(String)}: the text is split at
+     * whitespace into pieces that are analysed in the given pool, and the piece
+     * tables are merged left to right, so the result is identical to the
+     * sequential path.
+     */
+    Map<String, List<String>> collectEndings(String text, ForkJoinPool pool) {
+        if (text == null || text.isEmpty()) {
+            return collectEndingsSequential(text);
+        }
+        return pool.invoke(new EndingTask(text, 0, text.length()));
+    }
+
+    Map<String, List<String>> collectEndingsSequential(String text) {
         String[] words = cleanWords(text);
         
         // Group words by their phonetic endings
-        Map<String, List<String>> endingMap = new HashMap<>();
+        Map<String, List<String>> endingMap = new LinkedHashMap<>();
         
         for (String word : words) {
             if (word.length() < MIN_WORD_LENGTH) continue;
@@ -38,13 +98,74 @@ public class RhymeDetector {
             String phoneticEnding = getPhoneticEnding(word);
             if (phoneticEnding == null || phoneticEnding.length() < 2) continue;
             
-            endingMap.putIfAbsent(phoneticEnding, new ArrayList<>());
-            
-            // Avoid duplicates
-            if (!endingMap.get(phoneticEnding).contains(word)) {
-                endingMap.get(phoneticEnding).add(word);
+            // cleanWords already dropped repeated words
+            endingMap.computeIfAbsent(phoneticEnding, k -> new ArrayList<>()).add(word);
+        }
+        
+        return endingMap;
+    }
+
+    private final class EndingTask extends RecursiveTask<Map<String, List<String>>> {
+        private static final long serialVersionUID = 1L;
+
+        private final String text;
+        private final int start;
+        private final int end;
+
+        EndingTask(String text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Map<String, List<String>> compute() {
+            if (end - start > PARALLEL_LEAF_SIZE) {
+                // Move the split point forward to whitespace so no word is cut in two
+                int split = start + (end - start) / 2;
+                while (split < end && !TextChunker.isSeparator(text.charAt(split))) {
+                    split++;
+                }
+                if (split < end) {
+                    EndingTask left = new EndingTask(text, start, split);
+                    EndingTask right = new EndingTask(text, split, end);
+                    right.fork();
+                    Map<String, List<String>> endings = left.compute();
+                    mergeEndings(endings, right.join());
+                    return endings;
+                }
             }
+            return collectEndingsSequential(text.substring(start, end));
         }
+    }
+
+    /**
+     * Appends the ending table of a following piece of text to {@code target}.
+     * Merging tables in text order gives the same result as analysing the
+     * concatenated text in one go.
+     */
+    public void mergeEndings(Map<String, List<String>> target, Map<String, List<String>> next) {
+        for (Map.Entry<String, List<String>> entry : next.entrySet()) {
+            List<String> words = target.get(entry.getKey());
+            if (words == null) {
+                target.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+                continue;
+            }
+            // A set, not List.contains, so merging big groups stays linear
+            Set<String> seen = new HashSet<>(words);
+            for (String word : entry.getValue()) {
+                if (seen.add(word)) {
+                    words.add(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns a complete ending table into rhyme groups.
+     */
+    public Map<String, List<String>> groupEndings(Map<String, List<String>> endingMap) {
+        Map<String, List<String>> rhymeGroups = new HashMap<>();
         
         // Only keep groups with 2+ words (actual rhymes)
         for (Map.Entry<String, List<String>> entry : endingMap.entrySet()) {
@@ -63,10 +184,10 @@ public class RhymeDetector {
      * Extracts phonetic ending for rhyme matching
      * Focuses on the last vowel sound + following consonants
      */
-    private String getPhoneticEnding(String word) {
+    String getPhoneticEnding(String word) {
         if (word == null || word.length() < 2) return null;
         
-        word = word.toLowerCase();
+        word = AsciiScanner.foldCase(word);
         
         // Find the last vowel in the word
         int lastVowelIndex = -1;
@@ -93,8 +214,17 @@ public class RhymeDetector {
         return ending;
     }
     
-    private boolean isVowel(char c) {
-        return "aeiou".indexOf(Character.toLowerCase(c)) != -1;
+    static boolean isVowel(char c) {
+        switch (c) {
+            case 'a': case 'e': case 'i': case 'o': case 'u':
+            case 'A': case 'E': case 'I': case 'O': case 'U':
+                return true;
+            default:
+                if (c < 128) return false;
+                // Accented vowels decompose to a plain vowel and a combining mark
+                char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+                return "aeiou".indexOf(Character.toLowerCase(base)) != -1;
+        }
     }
 
     /**
@@ -121,18 +251,13 @@ public class RhymeDetector {
      * Cleans and tokenizes the input text
      */
     private String[] cleanWords(String sentence) {
-        if (sentence == null || sentence.trim().isEmpty()) {
+        if (sentence == null) {
             return new String[0];
         }
         
-        // Remove punctuation but preserve apostrophes in contractions
-        String cleaned = sentence.replaceAll("[^a-zA-Z'\\s]", "").toLowerCase();
-        
-        // Split and filter empty strings
-        return Arrays.stream(cleaned.split("\\s+"))
-                     .filter(word -> !word.isEmpty() && word.length() >= MIN_WORD_LENGTH)
-                     .distinct() // Remove duplicates from the same position
-                     .toArray(String[]::new);
+        // Same rules as stripping [^a-zA-Z'\s], lower-casing and splitting on \s+,
+        // but done in a single table-driven pass (see AsciiScanner)
+        return AsciiScanner.distinctWords(sentence, MIN_WORD_LENGTH);
     }
     
     /**
@@ -143,8 +268,8 @@ public class RhymeDetector {
         if (word1 == null || word2 == null) return false;
         if (word1.equals(word2)) return false; // Same word doesn't count
         
-        String ending1 = getPhoneticEnding(word1.toLowerCase());
-        String ending2 = getPhoneticEnding(word2.toLowerCase());
+        String ending1 = getPhoneticEnding(word1);
+        String ending2 = getPhoneticEnding(word2);
         
         if (ending1 == null || ending2 == null) return false;
         
@@ -0,0 +1,354 @@
+package com.rhyme_editor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * RhymeIndex - Answers "what rhymes with X" without scanning the text
+ *
+ * Words are stored in a trie keyed by their reversed phonetic ending, so all
+ * words sharing an ending hang off one node and near rhymes (same last two
+ * letters, see {@link RhymeDetector#doWordsRhyme}) live in the subtree two
+ * levels down. Nodes and word lists are kept in primitive arrays.
+ *
+ * The index holds the words of the current document plus a bundled word list.
+ * Document words are updated incrementally from the ending table of each
+ * analysis pass; only words that appeared or disappeared touch the trie.
+ * Words that left the document stay in the trie, unmarked, in case they come
+ * back; once they outnumber the document's words more than twice over, the
+ * document part is rebuilt from scratch.
+ */
+public class RhymeIndex {
+
+    private static final String WORD_LIST = "rhyme_words.txt";
+    private static final int NO_NODE = -1;
+    // Budget checks are cheap but not free; only look at the clock this often
+    private static final int CLOCK_CHECK_INTERVAL = 64;
+    // Below this many dead words a rebuild costs more than it frees
+    private static final int MIN_DEAD_WORDS_TO_PRUNE = 256;
+
+    private final RhymeDetector rhymeDetector;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Trie nodes: node 0 is the root
+    private char[] nodeChar = new char[256];
+    private int[] nodeDepth = new int[256];
+    private int[] firstChild = new int[256];
+    private int[] nextSibling = new int[256];
+    private int[] firstWord = new int[256];
+    private int nodeCount;
+
+    // Words: singly linked per node through nextWord
+    private String[] words = new String[256];
+    private int[] nextWord = new int[256];
+    private boolean[] bundled = new boolean[256];
+    private boolean[] inDocument = new boolean[256];
+    private int wordCount;
+    private int bundledWordCount;
+    // Indexed words that are neither bundled nor in the document
+    private int deadWordCount;
+    private final Map<String, Integer> wordIds = new HashMap<>();
+
+    private Set<String> documentWords = new HashSet<>();
+
+    public RhymeIndex(RhymeDetector rhymeDetector) {
+        this.rhymeDetector = rhymeDetector;
+        reset();
+    }
+
+    private void reset() {
+        nodeCount = 1;
+        firstChild[0] = NO_NODE;
+        nextSibling[0] = NO_NODE;
+        firstWord[0] = NO_NODE;
+        wordCount = 0;
+        deadWordCount = 0;
+        wordIds.clear();
+        documentWords = new HashSet<>();
+        loadBundledWords();
+        bundledWordCount = wordCount;
+    }
+
+    /**
+     * Drops every document word, shrinking the trie back to the bundled words.
+     * Words are otherwise never removed, only marked as no longer in the document.
+     */
+    public void clearDocument() {
+        lock.lock();
+        try {
+            clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Caller must hold the lock. */
+    private void clear() {
+        nodeChar = new char[256];
+        nodeDepth = new int[256];
+        firstChild = new int[256];
+        nextSibling = new int[256];
+        firstWord = new int[256];
+        words = new String[256];
+        nextWord = new int[256];
+        bundled = new boolean[256];
+        inDocument = new boolean[256];
+        reset();
+    }
+
+    /**
+     * Number of indexed words beyond the bundled list, including ones no
+     * longer in the document that have not been pruned yet.
+     */
+    public int getDocumentWordCount() {
+        lock.lock();
+        try {
+            return wordCount - bundledWordCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void loadBundledWords() {
+        InputStream in = RhymeIndex.class.getResourceAsStream(WORD_LIST);
+        if (in == null) return;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String word = line.trim().toLowerCase();
+                if (word.isEmpty() || word.startsWith("#")) continue;
+                int id = addWord(word);
+                if (id >= 0) {
+                    bundled[id] = true;
+                }
+            }
+        } catch (IOException e) {
+            // Suggestions still work from document words alone
+        }
+    }
+
+    /**
+     * Brings the document part of the index in line with a fresh ending table.
+     * Words that were already indexed are left untouched.
+     */
+    public void updateDocument(Map<String, List<String>> endingTable) {
+        Set<String> current = new HashSet<>();
+        for (List<String> group : endingTable.values()) {
+            current.addAll(group);
+        }
+
+        lock.lock();
+        try {
+            for (String word : documentWords) {
+                if (!current.contains(word)) {
+                    Integer id = wordIds.get(word);
+                    if (id != null) {
+                        inDocument[id] = false;
+                        if (!bundled[id]) deadWordCount++;
+                    }
+                }
+            }
+            for (String word : current) {
+                if (!documentWords.contains(word)) {
+                    addDocumentWord(word);
+                }
+            }
+
+            int liveWordCount = wordCount - bundledWordCount - deadWordCount;
+            if (deadWordCount > Math.max(2 * liveWordCount, MIN_DEAD_WORDS_TO_PRUNE)) {
+                clear();
+                for (String word : current) {
+                    addDocumentWord(word);
+                }
+            }
+            documentWords = current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Caller must hold the lock. */
+    private void addDocumentWord(String word) {
+        Integer existing = wordIds.get(word);
+        int id = existing != null ? existing : addWord(word);
+        if (id < 0) return;
+        // A word coming back into the document is no longer dead
+        if (existing != null && !inDocument[id] && !bundled[id]) {
+            deadWordCount--;
+        }
+        inDocument[id] = true;
+    }
+
+    /**
+     * Finds words that rhyme with {@code word} and start with {@code prefix}.
+     * Perfect rhymes come first, then near rhymes; within each, words from the
+     * document come before bundled words. The query gives up and returns what
+     * it has once {@code budgetNanos} is spent, including time spent waiting
+     * for a concurrent update to finish.
+     */
+    public List<String> findRhymes(String word, String prefix, int limit, long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        List<String> results = new ArrayList<>();
+        if (word == null || limit <= 0) return results;
+
+        String lowerWord = word.toLowerCase();
+        String lowerPrefix = prefix == null ? "" : prefix.toLowerCase();
+        String ending = rhymeDetector.getPhoneticEnding(lowerWord);
+        if (ending == null || ending.length() < 2) return results;
+
+        try {
+            if (!lock.tryLock(budgetNanos, TimeUnit.NANOSECONDS)) return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return results;
+        }
+
+        try {
+            // Walk the reversed ending: two letters for the near-rhyme root, then the rest
+            int nearRoot = NO_NODE;
+            int exact = 0;
+            for (int i = ending.length() - 1; i >= 0 && exact != NO_NODE; i--) {
+                exact = findChild(exact, ending.charAt(i));
+                if (depthOf(exact) == 2) {
+                    nearRoot = exact;
+                }
+            }
+            if (nearRoot == NO_NODE) return results;
+
+            List<String> bundledResults = new ArrayList<>();
+            if (exact != NO_NODE) {
+                collectWords(exact, lowerWord, lowerPrefix, limit, deadline, results, bundledResults);
+                results.addAll(bundledResults);
+                bundledResults.clear();
+            }
+
+            // Near rhymes: endings within one letter of the query's length
+            int[] stack = new int[16];
+            int top = 0;
+            stack[top++] = nearRoot;
+            int visited = 0;
+            while (top > 0 && results.size() + bundledResults.size() < limit) {
+                if (++visited % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) break;
+
+                int node = stack[--top];
+                int depth = nodeDepth[node];
+                if (node != exact && Math.abs(depth - ending.length()) <= 1) {
+                    collectWords(node, lowerWord, lowerPrefix, limit, deadline, results, bundledResults);
+                }
+                if (depth > ending.length()) continue;
+
+                for (int child = firstChild[node]; child != NO_NODE; child = nextSibling[child]) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = child;
+                }
+            }
+            results.addAll(bundledResults);
+        } finally {
+            lock.unlock();
+        }
+
+        return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+    }
+
+    private int depthOf(int node) {
+        return node == NO_NODE ? -1 : nodeDepth[node];
+    }
+
+    private void collectWords(int node, String exclude, String prefix, int limit, long deadline,
+                              List<String> documentResults, List<String> bundledResults) {
+        int scanned = 0;
+        for (int id = firstWord[node]; id != NO_NODE; id = nextWord[id]) {
+            if (documentResults.size() + bundledResults.size() >= limit) return;
+            if (++scanned % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) return;
+
+            String candidate = words[id];
+            if (candidate.equals(exclude) || !candidate.startsWith(prefix)) continue;
+
+            if (inDocument[id]) {
+                documentResults.add(candidate);
+            } else if (bundled[id]) {
+                bundledResults.add(candidate);
+            }
+        }
+    }
+
+    /**
+     * Adds a word to the trie if it is not there yet. Returns its id, or -1 if
+     * the word has no usable ending. Caller must hold the lock (or be the constructor).
+     */
+    private int addWord(String word) {
+        Integer existing = wordIds.get(word);
+        if (existing != null) return existing;
+
+        String ending = rhymeDetector.getPhoneticEnding(word);
+        if (ending == null || ending.length() < 2) return -1;
+
+        int node = 0;
+        for (int i = ending.length() - 1; i >= 0; i--) {
+            char c = ending.charAt(i);
+            int child = findChild(node, c);
+            if (child == NO_NODE) {
+                child = newNode(c, nodeDepth[node] + 1);
+                nextSibling[child] = firstChild[node];
+                firstChild[node] = child;
+            }
+            node = child;
+        }
+
+        if (wordCount == words.length) {
+            int capacity = wordCount * 2;
+            words = Arrays.copyOf(words, capacity);
+            nextWord = Arrays.copyOf(nextWord, capacity);
+            bundled = Arrays.copyOf(bundled, capacity);
+            inDocument = Arrays.copyOf(inDocument, capacity);
+        }
+
+        int id = wordCount++;
+        words[id] = word;
+        nextWord[id] = firstWord[node];
+        firstWord[node] = id;
+        wordIds.put(word, id);
+        return id;
+    }
+
+    private int findChild(int node, char c) {
+        for (int child = firstChild[node]; child != NO_NODE; child = nextSibling[child]) {
+            if (nodeChar[child] == c) return child;
+        }
+        return NO_NODE;
+    }
+
+    private int newNode(char c, int depth) {
+        if (nodeCount == nodeChar.length) {
+            int capacity = nodeCount * 2;
+            nodeChar = Arrays.copyOf(nodeChar, capacity);
+            nodeDepth = Arrays.copyOf(nodeDepth, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            firstWord = Arrays.copyOf(firstWord, capacity);
+        }
+
+        int node = nodeCount++;
+        nodeChar[node] = c;
+        nodeDepth[node] = depth;
+        firstChild[node] = NO_NODE;
+        nextSibling[node] = NO_NODE;
+        firstWord[node] = NO_NODE;
+        return node;
+    }
+}
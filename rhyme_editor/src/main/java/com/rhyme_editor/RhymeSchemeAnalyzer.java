@@ -0,0 +1,280 @@
+package com.rhyme_editor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Position;
+
+/**
+ * RhymeSchemeAnalyzer - Labels each stanza's line endings with a rhyme scheme
+ *
+ * Stanzas are runs of non-blank lines separated by blank lines. The last word of
+ * every line gets a letter (A, B, C, ...) and lines whose last words rhyme share
+ * a letter, giving schemes like AABB or ABAB. Stanzas longer than BLOCK_LINES
+ * are lettered in fixed blocks of that many lines, counted from the stanza's
+ * first line, so a file without blank lines stays cheap.
+ *
+ * Letters are cached per line element, with the line's index in its block. An
+ * edit drops only the letters of the blocks holding the lines it touched.
+ * Blocks further down may have shifted; a cached letter is used only while its
+ * line still has the same index in its block, which means the block still
+ * holds the same lines. Stanza starts come from an index of blank lines kept
+ * as document positions, so neither edits nor lookups walk the stanza.
+ */
+public class RhymeSchemeAnalyzer {
+
+    private static final int MAX_CACHED_LINES = 64 * 1024;
+    static final int BLOCK_LINES = 64;
+    // Only the tail of a line is needed to find its last word
+    private static final int LINE_TAIL = 256;
+    private static final Label BLANK = new Label((char) 0, 0);
+    private static final Comparator<Position> BY_OFFSET = Comparator.comparingInt(Position::getOffset);
+
+    private final RhymeDetector rhymeDetector;
+    // Elements survive edits within a line and are replaced when lines are
+    // split or joined, so a label never outlives its line's structure
+    private final Map<Element, Label> labels =
+        new LinkedHashMap<Element, Label>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Element, Label> eldest) {
+                return size() > MAX_CACHED_LINES;
+            }
+        };
+    // Start of every blank line of indexedDocument, built on first use. Edits
+    // never reorder positions, so the set stays sorted as the text changes.
+    private TreeSet<Position> blankLines;
+    private Document indexedDocument;
+
+    public RhymeSchemeAnalyzer(RhymeDetector rhymeDetector) {
+        this.rhymeDetector = rhymeDetector;
+    }
+
+    /**
+     * Number of cached labels and indexed blank lines.
+     */
+    public int getCacheSize() {
+        return labels.size() + (blankLines != null ? blankLines.size() : 0);
+    }
+
+    public void clearCache() {
+        labels.clear();
+        blankLines = null;
+        indexedDocument = null;
+    }
+
+    /**
+     * Updates the cache for an insert or remove. Costs in proportion to the
+     * lines the edit touched, not to the stanza. Must see every edit to the
+     * document; otherwise call {@link #clearCache()}.
+     */
+    public void documentChanged(DocumentEvent e) {
+        Document doc = e.getDocument();
+        // Nothing is cached for this document yet
+        if (doc != indexedDocument) return;
+
+        Element root = doc.getDefaultRootElement();
+        int firstLine = root.getElementIndex(e.getOffset());
+        int lastLine = e.getType() == DocumentEvent.EventType.INSERT
+            ? root.getElementIndex(e.getOffset() + e.getLength())
+            : firstLine;
+
+        // Removed blank lines collapse onto the edit, inside the touched range
+        int from = root.getElement(firstLine).getStartOffset();
+        int to = root.getElement(lastLine).getEndOffset();
+        blankLines.subSet(at(from), true, at(to), false).clear();
+        for (int line = firstLine; line <= lastLine; line++) {
+            Element element = root.getElement(line);
+            if (isBlank(doc, element)) {
+                addBlank(doc, element);
+            }
+        }
+
+        int end = Math.min(root.getElementCount(), blockStart(doc, lastLine) + BLOCK_LINES);
+        for (int line = blockStart(doc, firstLine); line < end; line++) {
+            labels.remove(root.getElement(line));
+        }
+    }
+
+    /**
+     * Returns the scheme letter for a line, or 0 for blank lines.
+     */
+    public char letterForLine(Document doc, int line) {
+        Element root = doc.getDefaultRootElement();
+        if (line < 0 || line >= root.getElementCount()) return 0;
+
+        int start = blockStart(doc, line);
+        Label label = labels.get(root.getElement(line));
+        if (label == null || label.index != line - start) {
+            label = labelBlock(doc, start).get(line);
+        }
+        return label != null ? label.letter : 0;
+    }
+
+    /**
+     * Returns the scheme (e.g. "ABAB") of the block containing a line.
+     */
+    public String schemeForLine(Document doc, int line) {
+        Element root = doc.getDefaultRootElement();
+        if (line < 0 || line >= root.getElementCount() || isBlank(doc, root.getElement(line))) return "";
+
+        int start = blockStart(doc, line);
+        Map<Integer, Label> block = labelBlock(doc, start);
+        StringBuilder scheme = new StringBuilder(block.size());
+        for (int i = start; block.containsKey(i); i++) {
+            scheme.append(block.get(i).letter);
+        }
+        return scheme.toString();
+    }
+
+    /**
+     * Finds the first line of the block containing a line: the line itself if
+     * blank, otherwise a multiple of BLOCK_LINES below the stanza start, which
+     * is the line after the nearest blank line above.
+     */
+    private int blockStart(Document doc, int line) {
+        // Built before anything is cached, so documentChanged sees every label
+        NavigableSet<Position> blanks = blankLines(doc);
+        Element root = doc.getDefaultRootElement();
+        Element element = root.getElement(line);
+        if (isBlank(doc, element)) return line;
+
+        Position blank = blanks.lower(at(element.getStartOffset()));
+        int first = blank != null ? root.getElementIndex(blank.getOffset()) + 1 : 0;
+        return first + (line - first) / BLOCK_LINES * BLOCK_LINES;
+    }
+
+    private NavigableSet<Position> blankLines(Document doc) {
+        if (doc != indexedDocument) {
+            labels.clear();
+            blankLines = new TreeSet<>(BY_OFFSET);
+            indexedDocument = doc;
+            Element root = doc.getDefaultRootElement();
+            for (int line = 0; line < root.getElementCount(); line++) {
+                if (isBlank(doc, root.getElement(line))) {
+                    addBlank(doc, root.getElement(line));
+                }
+            }
+        }
+        return blankLines;
+    }
+
+    private void addBlank(Document doc, Element line) {
+        try {
+            blankLines.add(doc.createPosition(line.getStartOffset()));
+        } catch (BadLocationException e) {
+            // Offsets of live elements are always valid
+        }
+    }
+
+    /** A search key for the blank line index. */
+    private static Position at(int offset) {
+        return () -> offset;
+    }
+
+    /**
+     * Computes and caches the labels of the block starting at a line, returned
+     * by line number.
+     */
+    private Map<Integer, Label> labelBlock(Document doc, int start) {
+        Element root = doc.getDefaultRootElement();
+        Map<Integer, Label> block = new LinkedHashMap<>();
+        if (isBlank(doc, root.getElement(start))) {
+            labels.put(root.getElement(start), BLANK);
+            block.put(start, BLANK);
+            return block;
+        }
+
+        List<String> lastWords = new ArrayList<>();
+        for (int line = start; line < root.getElementCount() && lastWords.size() < BLOCK_LINES
+                 && !isBlank(doc, root.getElement(line)); line++) {
+            lastWords.add(lastWord(lineTail(doc, root.getElement(line))));
+        }
+
+        String scheme = computeScheme(lastWords);
+        for (int i = 0; i < scheme.length(); i++) {
+            Label label = new Label(scheme.charAt(i), i);
+            labels.put(root.getElement(start + i), label);
+            block.put(start + i, label);
+        }
+        return block;
+    }
+
+    private String computeScheme(List<String> lastWords) {
+        StringBuilder scheme = new StringBuilder(lastWords.size());
+        List<String> representatives = new ArrayList<>();
+
+        for (String word : lastWords) {
+            char letter = 0;
+            for (int i = 0; i < representatives.size() && letter == 0; i++) {
+                String other = representatives.get(i);
+                if (word.equalsIgnoreCase(other) || rhymeDetector.doWordsRhyme(word, other)) {
+                    letter = letterAt(i);
+                }
+            }
+            if (letter == 0) {
+                letter = letterAt(representatives.size());
+                representatives.add(word);
+            }
+            scheme.append(letter);
+        }
+        return scheme.toString();
+    }
+
+    private static char letterAt(int index) {
+        return index < 26 ? (char) ('A' + index) : '*';
+    }
+
+    private static String lineTail(Document doc, Element line) {
+        int start = Math.max(line.getStartOffset(), line.getEndOffset() - LINE_TAIL);
+        try {
+            return doc.getText(start, line.getEndOffset() - start);
+        } catch (BadLocationException e) {
+            return "";
+        }
+    }
+
+    private static boolean isBlank(Document doc, Element line) {
+        try {
+            // Blank lines are short; anything longer than the tail is treated as text
+            int length = line.getEndOffset() - line.getStartOffset();
+            if (length > LINE_TAIL) return false;
+            return doc.getText(line.getStartOffset(), length).trim().isEmpty();
+        } catch (BadLocationException e) {
+            return true;
+        }
+    }
+
+    private static String lastWord(String line) {
+        int end = line.length();
+        while (end > 0 && !Character.isLetter(line.charAt(end - 1))) {
+            end--;
+        }
+        int start = end;
+        while (start > 0 && (Character.isLetter(line.charAt(start - 1)) || line.charAt(start - 1) == '\'')) {
+            start--;
+        }
+        return line.substring(start, end).toLowerCase();
+    }
+
+    /**
+     * A line's scheme letter and its index within its block.
+     */
+    private static final class Label {
+        final char letter;
+        final int index;
+
+        Label(char letter, int index) {
+            this.letter = letter;
+            this.index = index;
+        }
+    }
+}
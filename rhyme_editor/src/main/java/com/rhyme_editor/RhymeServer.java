@@ -0,0 +1,359 @@
+package com.rhyme_editor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * RhymeServer - Headless rhyme analysis over HTTP on localhost
+ *
+ * POST /rhymes/batch with a JSON array of strings (or {"texts": [...]}) returns
+ * one findRhymes result per text, streamed as a JSON array as each text is
+ * analysed. GET /health answers "ok".
+ *
+ * Requests run on virtual threads when the JVM has them (Java 21+) and on a
+ * cached pool otherwise. A semaphore caps in-flight requests; excess requests
+ * get 503 with Retry-After instead of queueing, and oversized bodies get 413.
+ */
+public class RhymeServer {
+
+    public static final int DEFAULT_PORT = 8377;
+    private static final int MAX_BODY_BYTES = 8 * 1024 * 1024;
+    private static final int MAX_TEXTS_PER_REQUEST = 1000;
+
+    private final RhymeDetector rhymeDetector = new RhymeDetector();
+    private final Semaphore inFlight;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public RhymeServer(int port, int maxInFlight) throws IOException {
+        this.inFlight = new Semaphore(maxInFlight);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = createExecutor();
+
+        server.createContext("/rhymes/batch", this::handleBatch);
+        server.createContext("/health", exchange -> respond(exchange, 200, "ok"));
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Prefers a virtual-thread-per-task executor, looked up reflectively so the
+     * server still runs on Java 17.
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "POST only");
+                return;
+            }
+
+            // Backpressure: refuse rather than queue when saturated
+            if (!inFlight.tryAcquire()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 503, "busy");
+                return;
+            }
+
+            try {
+                String length = exchange.getRequestHeaders().getFirst("Content-Length");
+                if (length != null && Long.parseLong(length) > MAX_BODY_BYTES) {
+                    respond(exchange, 413, "request body over " + MAX_BODY_BYTES + " bytes");
+                    return;
+                }
+
+                String body = readBody(exchange.getRequestBody());
+                if (body == null) {
+                    respond(exchange, 413, "request body over " + MAX_BODY_BYTES + " bytes");
+                    return;
+                }
+
+                List<String> texts;
+                try {
+                    texts = parseTexts(body);
+                } catch (IllegalArgumentException e) {
+                    respond(exchange, 400, e.getMessage());
+                    return;
+                }
+                if (texts.size() > MAX_TEXTS_PER_REQUEST) {
+                    respond(exchange, 413, "more than " + MAX_TEXTS_PER_REQUEST + " texts");
+                    return;
+                }
+
+                streamResults(exchange, texts);
+            } finally {
+                inFlight.release();
+            }
+        } catch (NumberFormatException e) {
+            respond(exchange, 400, "bad Content-Length");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Writes each result as soon as it is computed, using a chunked response.
+     */
+    private void streamResults(HttpExchange exchange, List<String> texts) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+
+        try (Writer out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+            out.write('[');
+            for (int i = 0; i < texts.size(); i++) {
+                if (i > 0) out.write(',');
+                writeGroups(out, rhymeDetector.findRhymes(texts.get(i)));
+                out.flush();
+            }
+            out.write(']');
+        }
+    }
+
+    private static void writeGroups(Writer out, Map<String, List<String>> groups) throws IOException {
+        out.write('{');
+        boolean firstGroup = true;
+        for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+            if (!firstGroup) out.write(',');
+            firstGroup = false;
+            writeString(out, group.getKey());
+            out.write(":[");
+            boolean firstWord = true;
+            for (String word : group.getValue()) {
+                if (!firstWord) out.write(',');
+                firstWord = false;
+                writeString(out, word);
+            }
+            out.write(']');
+        }
+        out.write('}');
+    }
+
+    private static void writeString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * Reads the body, or returns null once it exceeds the size limit.
+     */
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[16 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (body.size() + read > MAX_BODY_BYTES) return null;
+            body.write(buffer, 0, read);
+        }
+        return body.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses either a JSON array of strings or an object whose "texts" member is one.
+     */
+    static List<String> parseTexts(String json) {
+        JsonReader reader = new JsonReader(json);
+        reader.skipWhitespace();
+        List<String> texts;
+        if (reader.peek() == '{') {
+            texts = null;
+            reader.expect('{');
+            reader.skipWhitespace();
+            // Members are separated by commas; a comma before '}' is an error
+            while (reader.peek() != '}') {
+                String key = reader.readString();
+                reader.skipWhitespace();
+                reader.expect(':');
+                reader.skipWhitespace();
+                if (key.equals("texts")) {
+                    texts = reader.readStringArray();
+                } else {
+                    throw new IllegalArgumentException("unexpected member \"" + key + "\"");
+                }
+                reader.skipWhitespace();
+                if (reader.peek() == '}') break;
+                reader.expect(',');
+                reader.skipWhitespace();
+                if (reader.peek() == '}') {
+                    throw new IllegalArgumentException("trailing comma at " + reader.pos);
+                }
+            }
+            reader.expect('}');
+            if (texts == null) {
+                throw new IllegalArgumentException("missing \"texts\"");
+            }
+        } else {
+            texts = reader.readStringArray();
+        }
+        reader.skipWhitespace();
+        if (!reader.atEnd()) {
+            throw new IllegalArgumentException("trailing data after JSON");
+        }
+        return texts;
+    }
+
+    /**
+     * Just enough JSON to read string arrays.
+     */
+    private static final class JsonReader {
+        private final String json;
+        private int pos;
+
+        JsonReader(String json) {
+            this.json = json;
+        }
+
+        boolean atEnd() {
+            return pos >= json.length();
+        }
+
+        char peek() {
+            if (atEnd()) throw new IllegalArgumentException("unexpected end of JSON");
+            return json.charAt(pos);
+        }
+
+        void expect(char c) {
+            if (peek() != c) {
+                throw new IllegalArgumentException("expected '" + c + "' at " + pos);
+            }
+            pos++;
+        }
+
+        void skipWhitespace() {
+            while (!atEnd() && Character.isWhitespace(json.charAt(pos))) pos++;
+        }
+
+        List<String> readStringArray() {
+            List<String> values = new ArrayList<>();
+            expect('[');
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return values;
+            }
+            while (true) {
+                skipWhitespace();
+                values.add(readString());
+                skipWhitespace();
+                if (peek() == ']') {
+                    pos++;
+                    return values;
+                }
+                expect(',');
+            }
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = peek();
+                pos++;
+                if (c == '"') return value.toString();
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = peek();
+                pos++;
+                switch (escaped) {
+                    case '"': case '\\': case '/': value.append(escaped); break;
+                    case 'n': value.append('\n'); break;
+                    case 'r': value.append('\r'); break;
+                    case 't': value.append('\t'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u': value.append(readHexChar()); break;
+                    default:
+                        throw new IllegalArgumentException("bad escape '\\" + escaped + "' at " + (pos - 2));
+                }
+            }
+        }
+
+        /**
+         * Reads the four hex digits of a unicode escape. Exactly four ASCII hex
+         * digits are required; a sign, as Integer.parseInt would accept, is not.
+         */
+        private char readHexChar() {
+            if (pos + 4 > json.length()) {
+                throw new IllegalArgumentException("bad \\u escape at " + (pos - 2));
+            }
+            int code = 0;
+            for (int i = 0; i < 4; i++) {
+                char c = json.charAt(pos + i);
+                int digit = c >= '0' && c <= '9' ? c - '0'
+                    : c >= 'a' && c <= 'f' ? c - 'a' + 10
+                    : c >= 'A' && c <= 'F' ? c - 'A' + 10
+                    : -1;
+                if (digit < 0) {
+                    throw new IllegalArgumentException("bad \\u escape at " + (pos - 2));
+                }
+                code = code * 16 + digit;
+            }
+            pos += 4;
+            return (char) code;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.rhyme_editor;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RhymeServerLoadDriver - Local load generator for {@link RhymeServer}
+ *
+ * Usage: RhymeServerLoadDriver [port] [clients] [seconds] [textsPerRequest]
+ *
+ * Starts a server on the port if nothing answers there, then has each client
+ * send batch requests back to back for the given duration. A client that gets
+ * 503 backs off before retrying, doubling its wait up to the server's
+ * Retry-After, so rejected requests do not turn into a busy loop. Prints
+ * requests per second, texts per second, rejected (503) requests and latency
+ * percentiles.
+ */
+public class RhymeServerLoadDriver {
+
+    private static final String[] SAMPLE_LINES = {
+        "I walked along the shore tonight",
+        "The harbour lamps were burning bright",
+        "You said the tide would bring you home",
+        "But all it brought me was the foam",
+        "We built a fire on the sand",
+        "And held the embers in our hand",
+        "The morning came and found us there",
+        "With salt and smoke still in our hair"
+    };
+    private static final long FIRST_BACKOFF_MS = 10;
+    private static final long MAX_BACKOFF_MS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : RhymeServer.DEFAULT_PORT;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int textsPerRequest = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+
+        HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+        URI batchUri = URI.create("http://127.0.0.1:" + port + "/rhymes/batch");
+
+        RhymeServer server = null;
+        if (!isUp(client, URI.create("http://127.0.0.1:" + port + "/health"))) {
+            server = new RhymeServer(port, clients);
+            server.start();
+            System.out.println("Started in-process server on port " + port);
+        }
+
+        String body = buildBody(textsPerRequest);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            results.add(pool.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                long backoffMs = FIRST_BACKOFF_MS;
+                HttpRequest request = HttpRequest.newBuilder(batchUri)
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .header("Content-Type", "application/json")
+                    .build();
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 503) {
+                            rejected.incrementAndGet();
+                            long limitMs = response.headers().firstValueAsLong("Retry-After")
+                                                   .orElse(MAX_BACKOFF_MS / 1000) * 1000;
+                            backoffMs = Math.min(backoffMs * 2, Math.max(FIRST_BACKOFF_MS, limitMs));
+                            // Jittered so rejected clients do not all come back at once
+                            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMs / 2, backoffMs + 1));
+                            continue;
+                        }
+                        backoffMs = FIRST_BACKOFF_MS;
+                        if (response.statusCode() != 200) {
+                            failed.incrementAndGet();
+                            continue;
+                        }
+                    } catch (java.io.IOException e) {
+                        failed.incrementAndGet();
+                        continue;
+                    }
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+
+        long started = System.nanoTime();
+        List<long[]> perClient = new ArrayList<>();
+        for (Future<long[]> result : results) {
+            perClient.add(result.get());
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        pool.shutdown();
+        if (server != null) {
+            server.stop();
+        }
+
+        long[] all = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("clients=%d texts/request=%d duration=%.1fs%n", clients, textsPerRequest, elapsed);
+        System.out.printf("requests: %d ok, %d rejected (503), %d failed%n", all.length, rejected.get(), failed.get());
+        System.out.printf("throughput: %.1f req/s, %.1f texts/s%n",
+                          all.length / elapsed, all.length * (double) textsPerRequest / elapsed);
+        if (all.length > 0) {
+            System.out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f max=%.2f%n",
+                              percentile(all, 0.50), percentile(all, 0.90),
+                              percentile(all, 0.99), all[all.length - 1] / 1e6);
+        }
+    }
+
+    private static boolean isUp(HttpClient client, URI health) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(health).timeout(Duration.ofSeconds(1)).build();
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private static String buildBody(int texts) {
+        StringBuilder body = new StringBuilder("[");
+        for (int t = 0; t < texts; t++) {
+            if (t > 0) body.append(',');
+            body.append('"');
+            // Rotate the lines so texts differ a little
+            for (int i = 0; i < SAMPLE_LINES.length; i++) {
+                if (i > 0) body.append("\\n");
+                body.append(SAMPLE_LINES[(i + t) % SAMPLE_LINES.length]);
+            }
+            body.append('"');
+        }
+        return body.append(']').toString();
+    }
+}
@@ -0,0 +1,275 @@
+package com.rhyme_editor;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Autocomplete popup offering words that rhyme with the end of the previous line.
+ * Opened with Ctrl+Space; the list narrows as the user keeps typing.
+ */
+public class RhymeSuggestionPopup {
+
+    // Every query must fit comfortably inside a single keystroke
+    private static final long QUERY_BUDGET_NANOS = 2_000_000;
+    private static final int MAX_SUGGESTIONS = 12;
+
+    private final JTextComponent editor;
+    private final RhymeIndex rhymeIndex;
+    private final JPopupMenu popup = new JPopupMenu();
+    private final DefaultListModel<String> model = new DefaultListModel<>();
+    private final JList<String> list = new JList<>(model);
+
+    private String rhymeTarget;
+    // Line the popup was opened on; suggestions only apply there
+    private Element line;
+    private int wordStart;
+
+    public RhymeSuggestionPopup(JTextComponent editor, RhymeIndex rhymeIndex) {
+        this.editor = editor;
+        this.rhymeIndex = rhymeIndex;
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.setFont(new Font("SansSerif", Font.PLAIN, 13));
+        list.setSelectionBackground(new Color(180, 210, 255));
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    accept();
+                }
+            }
+        });
+
+        popup.setFocusable(false);
+        popup.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
+        popup.add(list);
+
+        editor.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                handleKey(e);
+            }
+        });
+
+        editor.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                refreshLater();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                refreshLater();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes do not affect suggestions
+            }
+        });
+
+        // Clicking or arrowing off the line closes the popup
+        editor.addCaretListener(e -> {
+            if (popup.isVisible() && currentPrefix() == null) {
+                hide();
+            }
+        });
+    }
+
+    public boolean isVisible() {
+        return popup.isVisible();
+    }
+
+    /**
+     * Opens the popup for the word at the caret.
+     */
+    public void show() {
+        Element root = editor.getDocument().getDefaultRootElement();
+        line = root.getElement(root.getElementIndex(editor.getCaretPosition()));
+        rhymeTarget = findPreviousLineEnd();
+        if (rhymeTarget == null) {
+            hide();
+            return;
+        }
+        refresh();
+    }
+
+    public void hide() {
+        popup.setVisible(false);
+    }
+
+    private void handleKey(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_SPACE && e.isControlDown()) {
+            show();
+            e.consume();
+            return;
+        }
+        if (!popup.isVisible()) return;
+
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_DOWN:
+                moveSelection(1);
+                e.consume();
+                break;
+            case KeyEvent.VK_UP:
+                moveSelection(-1);
+                e.consume();
+                break;
+            case KeyEvent.VK_ENTER:
+            case KeyEvent.VK_TAB:
+                accept();
+                e.consume();
+                break;
+            case KeyEvent.VK_ESCAPE:
+                hide();
+                e.consume();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void moveSelection(int delta) {
+        int size = model.getSize();
+        if (size == 0) return;
+        int index = (list.getSelectedIndex() + delta + size) % size;
+        list.setSelectedIndex(index);
+        list.ensureIndexIsVisible(index);
+    }
+
+    private void refreshLater() {
+        if (popup.isVisible()) {
+            SwingUtilities.invokeLater(this::refresh);
+        }
+    }
+
+    private void refresh() {
+        if (rhymeTarget == null) return;
+
+        String prefix = currentPrefix();
+        if (prefix == null) {
+            hide();
+            return;
+        }
+
+        List<String> suggestions = rhymeIndex.findRhymes(rhymeTarget, prefix, MAX_SUGGESTIONS,
+                                                         QUERY_BUDGET_NANOS);
+        if (suggestions.isEmpty()) {
+            hide();
+            return;
+        }
+
+        model.clear();
+        for (String suggestion : suggestions) {
+            model.addElement(suggestion);
+        }
+        list.setSelectedIndex(0);
+        list.setVisibleRowCount(Math.min(suggestions.size(), 8));
+
+        try {
+            Rectangle2D caret = editor.modelToView2D(wordStart);
+            if (caret == null) return;
+            popup.pack();
+            popup.show(editor, (int) caret.getX(), (int) caret.getMaxY());
+        } catch (BadLocationException ex) {
+            hide();
+        }
+    }
+
+    private void accept() {
+        String selected = list.getSelectedValue();
+        hide();
+        // Also updates wordStart to the word at the caret
+        if (selected == null || currentPrefix() == null) return;
+
+        try {
+            int caret = editor.getCaretPosition();
+            Document doc = editor.getDocument();
+            doc.remove(wordStart, caret - wordStart);
+            doc.insertString(wordStart, selected, null);
+        } catch (BadLocationException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the partial word directly before the caret (possibly empty), or
+     * null when the caret is no longer on the line the popup was opened for.
+     */
+    private String currentPrefix() {
+        try {
+            int caret = editor.getCaretPosition();
+            Element root = editor.getDocument().getDefaultRootElement();
+            Element current = root.getElement(root.getElementIndex(caret));
+            // Elements are replaced when lines are split or joined, so this
+            // also catches the line itself going away
+            if (current != line) return null;
+            int lineStart = current.getStartOffset();
+            String before = editor.getDocument().getText(lineStart, caret - lineStart);
+
+            int start = before.length();
+            while (start > 0 && isWordChar(before.charAt(start - 1))) {
+                start--;
+            }
+            wordStart = lineStart + start;
+            return before.substring(start);
+        } catch (BadLocationException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Finds the last word of the nearest non-blank line above the caret.
+     */
+    private String findPreviousLineEnd() {
+        try {
+            Document doc = editor.getDocument();
+            Element root = doc.getDefaultRootElement();
+            int line = root.getElementIndex(editor.getCaretPosition()) - 1;
+
+            for (; line >= 0; line--) {
+                Element element = root.getElement(line);
+                String text = doc.getText(element.getStartOffset(),
+                                          element.getEndOffset() - element.getStartOffset());
+                int end = text.length();
+                while (end > 0 && !isWordChar(text.charAt(end - 1))) {
+                    end--;
+                }
+                if (end == 0) continue;
+
+                int start = end;
+                while (start > 0 && isWordChar(text.charAt(start - 1))) {
+                    start--;
+                }
+                return text.substring(start, end);
+            }
+        } catch (BadLocationException ex) {
+            // Fall through: nothing to rhyme with
+        }
+        return null;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetter(c) || c == '\'';
+    }
+}
@@ -0,0 +1,199 @@
+package com.rhyme_editor;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+/**
+ * SessionRecorder - Records document edits as a timestamped trace
+ *
+ * Each line of a trace is one edit:
+ * <pre>
+ *   &lt;nanos since start&gt; I &lt;offset&gt; &lt;escaped text&gt;
+ *   &lt;nanos since start&gt; R &lt;offset&gt; &lt;length&gt;
+ * </pre>
+ * The document's text when recording starts is written as an insert at time 0,
+ * so a replay begins from the same state. {@link SessionReplay} plays traces back.
+ */
+public class SessionRecorder implements DocumentListener {
+
+    private static final String HEADER = "# rhyme_editor session v1";
+    // Buffered events are written out at least this often
+    private static final long FLUSH_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final Document doc;
+    private final Writer out;
+    private final long startNanos;
+    private long lastFlushNanos;
+    private IOException failure;
+
+    public SessionRecorder(Document doc, Path target) throws IOException {
+        this.doc = doc;
+        this.out = new BufferedWriter(Files.newBufferedWriter(target, StandardCharsets.UTF_8));
+        this.startNanos = System.nanoTime();
+        this.lastFlushNanos = startNanos;
+
+        out.write(HEADER);
+        out.write('\n');
+        try {
+            if (doc.getLength() > 0) {
+                writeInsert(0, 0, doc.getText(0, doc.getLength()));
+            }
+        } catch (BadLocationException e) {
+            // Empty start state
+        }
+        doc.addDocumentListener(this);
+    }
+
+    /**
+     * Stops recording and closes the trace. Returns the first write error, if any.
+     */
+    public IOException stop() {
+        doc.removeDocumentListener(this);
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (failure == null) failure = e;
+        }
+        return failure;
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+        try {
+            writeInsert(System.nanoTime() - startNanos, e.getOffset(), doc.getText(e.getOffset(), e.getLength()));
+        } catch (BadLocationException ex) {
+            // Cannot happen inside the notification
+        }
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+        record(System.nanoTime() - startNanos + " R " + e.getOffset() + " " + e.getLength());
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) {
+        // Attribute changes are highlighting output, not input
+    }
+
+    private void writeInsert(long time, int offset, String text) {
+        record(time + " I " + offset + " " + escape(text));
+    }
+
+    private void record(String line) {
+        if (failure != null) return;
+        try {
+            out.write(line);
+            out.write('\n');
+            long now = System.nanoTime();
+            if (now - lastFlushNanos > FLUSH_INTERVAL_NANOS) {
+                out.flush();
+                lastFlushNanos = now;
+            }
+        } catch (IOException e) {
+            // Keep editing working; the error is reported by stop()
+            failure = e;
+        }
+    }
+
+    /**
+     * One recorded edit.
+     */
+    public static final class Event {
+        public final long timeNanos;
+        public final boolean insert;
+        public final int offset;
+        public final String text;
+        public final int length;
+
+        Event(long timeNanos, boolean insert, int offset, String text, int length) {
+            this.timeNanos = timeNanos;
+            this.insert = insert;
+            this.offset = offset;
+            this.text = text;
+            this.length = length;
+        }
+    }
+
+    public static List<Event> read(Path trace) throws IOException {
+        List<Event> events = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(trace, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                String[] fields = line.split(" ", 4);
+                try {
+                    long time = Long.parseLong(fields[0]);
+                    int offset = Integer.parseInt(fields[2]);
+                    if (offset < 0) {
+                        throw new IOException("Negative offset at line " + lineNumber);
+                    }
+                    if (fields[1].equals("I")) {
+                        String text = unescape(fields.length > 3 ? fields[3] : "");
+                        events.add(new Event(time, true, offset, text, text.length()));
+                    } else if (fields[1].equals("R")) {
+                        int length = Integer.parseInt(fields[3]);
+                        if (length < 0) {
+                            throw new IOException("Negative length at line " + lineNumber);
+                        }
+                        events.add(new Event(time, false, offset, null, length));
+                    } else {
+                        throw new IOException("Unknown edit type at line " + lineNumber);
+                    }
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    throw new IOException("Malformed trace line " + lineNumber);
+                }
+            }
+        }
+        return events;
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\': escaped.append("\\\\"); break;
+                case '\n': escaped.append("\\n"); break;
+                case '\r': escaped.append("\\r"); break;
+                case '\t': escaped.append("\\t"); break;
+                default: escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String unescape(String text) {
+        StringBuilder plain = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '\\' || i + 1 == text.length()) {
+                plain.append(c);
+                continue;
+            }
+            char next = text.charAt(++i);
+            switch (next) {
+                case 'n': plain.append('\n'); break;
+                case 'r': plain.append('\r'); break;
+                case 't': plain.append('\t'); break;
+                default: plain.append(next);
+            }
+        }
+        return plain.toString();
+    }
+}
@@ -0,0 +1,266 @@
+package com.rhyme_editor;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+/**
+ * SessionReplay - Replays a recorded typing session against a real EditorPane
+ *
+ * Usage: SessionReplay &lt;trace&gt; [speed|max]
+ *
+ * Edits from a {@link SessionRecorder} trace are posted to the EDT at their
+ * recorded times divided by speed ("max" posts each one as soon as the
+ * previous one has been handled). The full keystroke path runs: document
+ * insert, gutter, debounce timer, background analysis, highlight painting and
+ * status bar. Works with the headless toolkit; painting goes to an offscreen
+ * image the size of a window.
+ *
+ * Two latencies are reported per edit, both measured from the moment the edit
+ * was posted:
+ *   paint     - the edit, its queued status bar update and a repaint of the
+ *               visible area are done
+ *   highlight - a highlighting pass that read the text after the edit has
+ *               been painted
+ */
+public class SessionReplay {
+
+    private static final int VIEW_WIDTH = 1000;
+    private static final int VIEW_HEIGHT = 640;
+    // How long to wait for the last edits to be highlighted
+    private static final long SETTLE_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final EditorPane editor;
+    private final StatusBar statusBar;
+    private final BufferedImage canvas = new BufferedImage(VIEW_WIDTH, VIEW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+
+    // EDT-only bookkeeping
+    private final Deque<long[]> awaitingHighlight = new ArrayDeque<>();
+    private long[] paintLatencies = new long[1024];
+    private int paintCount;
+    private long[] highlightLatencies = new long[1024];
+    private int highlightCount;
+    private int passes;
+
+    private SessionReplay() {
+        editor = new EditorPane();
+        statusBar = new StatusBar();
+
+        // Same status updates MainFrame makes
+        editor.addTextChangeListener(() -> {
+            statusBar.updateStats(editor.getWordCount(), editor.getCharCount(), editor.getRhymeCount());
+            statusBar.updateLineSyllables(editor.getCaretLineSyllables());
+        });
+        editor.addHighlightListener(this::highlightPainted);
+
+        JScrollPane scrollPane = editor.getScrollPane();
+        scrollPane.setSize(VIEW_WIDTH, VIEW_HEIGHT);
+        layOut(scrollPane);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: SessionReplay <trace> [speed|max]");
+            System.exit(2);
+        }
+        Path trace = Paths.get(args[0]);
+        boolean max = args.length > 1 && args[1].equals("max");
+        double speed = args.length > 1 && !max ? Double.parseDouble(args[1]) : 1.0;
+
+        List<SessionRecorder.Event> events = SessionRecorder.read(trace);
+        SessionReplay[] replay = new SessionReplay[1];
+        SwingUtilities.invokeAndWait(() -> replay[0] = new SessionReplay());
+        replay[0].run(events, speed, max);
+        System.exit(0);
+    }
+
+    private void run(List<SessionRecorder.Event> events, double speed, boolean max) throws Exception {
+        int first = 0;
+
+        // The document's starting text loads like an opened file, untimed
+        if (!events.isEmpty() && events.get(0).timeNanos == 0 && events.get(0).insert) {
+            String initial = events.get(0).text;
+            CountDownLatch loaded = new CountDownLatch(1);
+            SwingUtilities.invokeAndWait(() -> {
+                editor.addHighlightListener(snapshot -> loaded.countDown());
+                editor.setPaneText(initial);
+            });
+            loaded.await(SETTLE_NANOS, TimeUnit.NANOSECONDS);
+            SwingUtilities.invokeAndWait(() -> editor.addHighlightListener(this::highlightPainted));
+            first = 1;
+            System.out.printf("initial text: %d chars%n", initial.length());
+        }
+
+        long base = first < events.size() ? events.get(first).timeNanos : 0;
+        long start = System.nanoTime();
+        for (int i = first; i < events.size(); i++) {
+            SessionRecorder.Event event = events.get(i);
+            if (!max) {
+                long due = start + (long) ((event.timeNanos - base) / speed);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+
+            long posted = System.nanoTime();
+            if (max) {
+                SwingUtilities.invokeAndWait(() -> apply(event, posted));
+            } else {
+                SwingUtilities.invokeLater(() -> apply(event, posted));
+            }
+        }
+        double replaySeconds = (System.nanoTime() - start) / 1e9;
+
+        // Let the tail of the session get highlighted
+        long deadline = System.nanoTime() + SETTLE_NANOS;
+        boolean[] settled = { false };
+        while (!settled[0] && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+            SwingUtilities.invokeAndWait(() -> settled[0] = awaitingHighlight.isEmpty());
+        }
+
+        SwingUtilities.invokeAndWait(() -> report(replaySeconds, speed, max));
+    }
+
+    /**
+     * Applies one edit the way typing would, then queues the repaint behind
+     * whatever the edit itself queued.
+     */
+    private void apply(SessionRecorder.Event event, long posted) {
+        Document doc = editor.getDocument();
+        try {
+            if (event.insert && event.length >= EditorPane.BULK_PASTE_THRESHOLD) {
+                editor.runBulkMutation(() -> {
+                    try {
+                        applyEdit(doc, event);
+                    } catch (BadLocationException e) {
+                        throw new IllegalArgumentException(e);
+                    }
+                });
+            } else {
+                applyEdit(doc, event);
+            }
+            int caret = event.insert ? event.offset + event.length : event.offset;
+            editor.setCaretPosition(Math.min(caret, doc.getLength()));
+        } catch (BadLocationException | IllegalArgumentException e) {
+            System.err.println("Skipping edit at " + event.offset + ": " + e.getMessage());
+            return;
+        }
+        awaitingHighlight.add(new long[] { posted, System.nanoTime() });
+
+        SwingUtilities.invokeLater(() -> {
+            paintVisibleArea();
+            if (paintCount == paintLatencies.length) {
+                paintLatencies = Arrays.copyOf(paintLatencies, paintCount * 2);
+            }
+            paintLatencies[paintCount++] = System.nanoTime() - posted;
+        });
+    }
+
+    /**
+     * Applies one recorded edit to a document. Inserts past the end go at the
+     * end and removals are cut short there, so a trace can be replayed onto a
+     * document that has drifted from the recorded one.
+     */
+    static void applyEdit(Document doc, SessionRecorder.Event event) throws BadLocationException {
+        if (event.insert) {
+            doc.insertString(Math.min(event.offset, doc.getLength()), event.text, null);
+        } else {
+            doc.remove(event.offset, Math.min(event.length, doc.getLength() - event.offset));
+        }
+    }
+
+    private void paintVisibleArea() {
+        JScrollPane scrollPane = editor.getScrollPane();
+        layOut(scrollPane);
+        editor.scrollRectToVisible(caretRectangle());
+        Graphics2D g = canvas.createGraphics();
+        try {
+            scrollPane.paint(g);
+            statusBar.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Lays out a component tree. validate() does nothing without a native
+     * peer, so headless trees are laid out by hand.
+     */
+    static void layOut(Container container) {
+        container.doLayout();
+        for (Component child : container.getComponents()) {
+            if (child instanceof Container) {
+                layOut((Container) child);
+            }
+        }
+    }
+
+    private Rectangle caretRectangle() {
+        try {
+            Rectangle2D caret = editor.modelToView2D(editor.getCaretPosition());
+            return caret != null ? caret.getBounds() : new Rectangle();
+        } catch (BadLocationException e) {
+            return new Rectangle();
+        }
+    }
+
+    /**
+     * Edits applied before the pass read the text are now highlighted.
+     */
+    private void highlightPainted(long snapshotNanos) {
+        passes++;
+        long now = System.nanoTime();
+        while (!awaitingHighlight.isEmpty() && awaitingHighlight.peekFirst()[1] <= snapshotNanos) {
+            long posted = awaitingHighlight.pollFirst()[0];
+            if (highlightCount == highlightLatencies.length) {
+                highlightLatencies = Arrays.copyOf(highlightLatencies, highlightCount * 2);
+            }
+            highlightLatencies[highlightCount++] = now - posted;
+        }
+    }
+
+    private void report(double seconds, double speed, boolean max) {
+        System.out.printf("replayed %d edits in %.2fs (%s), %d highlight passes%n",
+                          paintCount, seconds, max ? "max speed" : speed + "x", passes);
+        printDistribution("keystroke-to-paint", paintLatencies, paintCount);
+        printDistribution("keystroke-to-highlight", highlightLatencies, highlightCount);
+        if (!awaitingHighlight.isEmpty()) {
+            System.out.printf("%d edits were never highlighted%n", awaitingHighlight.size());
+        }
+    }
+
+    private static void printDistribution(String name, long[] latencies, int count) {
+        if (count == 0) {
+            System.out.printf("%-24s no samples%n", name);
+            return;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        System.out.printf("%-24s n=%d p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms%n", name, count,
+                          percentile(sorted, 0.50), percentile(sorted, 0.90),
+                          percentile(sorted, 0.99), sorted[count - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
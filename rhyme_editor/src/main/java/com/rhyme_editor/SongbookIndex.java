@@ -0,0 +1,783 @@
+package com.rhyme_editor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * SongbookIndex - Finds where a rhyme has been used across a folder of songs
+ *
+ * An inverted index from phonetic ending (see {@link RhymeDetector}) to every
+ * (song, offset) where a word with that ending occurs. It lives in a
+ * ".rhyme_index" directory inside the songbook folder as a list of immutable
+ * segment files, each memory-mapped for lookups:
+ *
+ *   header   - magic, versions and the segment's song table (path, size,
+ *              modification time, deleted flag)
+ *   postings - per ending, varint pairs of (song delta, offset); the offset is
+ *              a delta too while the song stays the same
+ *   terms    - the endings, UTF-8, in sorted order
+ *   entries  - fixed-width (term, postings, count) records for binary search
+ *   footer   - where each section starts
+ *
+ * Saving a song writes a small segment holding just that song; a song in a
+ * newer segment shadows its older copies, and a deleted flag hides it.
+ * Segments are merged in tiers: once the newest segments include
+ * SEGMENTS_PER_TIER of about the same size, that tail is merged into one
+ * segment in the background, dropping shadowed songs. Older, larger segments
+ * are left alone until enough of their own size have built up after them, so
+ * a save never rewrites the whole index. The manifest listing live segments is
+ * replaced atomically, so readers always see a consistent set.
+ *
+ * Writes run on one background thread; lookups run on any thread against an
+ * immutable snapshot.
+ */
+public class SongbookIndex {
+
+    static final String INDEX_DIRECTORY = ".rhyme_index";
+    private static final String MANIFEST = "segments";
+    private static final String SEGMENT_SUFFIX = ".rsi";
+    private static final String SONG_SUFFIX = ".txt";
+    private static final int MAGIC = 0x52485349; // "RHSI"
+    private static final int FORMAT_VERSION = 1;
+    private static final int FOOTER_BYTES = 5 * 4;
+    private static final int ENTRY_BYTES = 3 * 4;
+    private static final int SONGS_PER_SEGMENT = 1000;
+    // This many segments of one tier at the tail are merged into one
+    private static final int SEGMENTS_PER_TIER = 8;
+    // Segments smaller than this are all in the lowest tier; each tier above
+    // holds segments SEGMENTS_PER_TIER times larger than the one below
+    private static final long TIER_BASE_BYTES = 16 * 1024;
+
+    private final Path root;
+    private final Path indexDirectory;
+    private final RhymeDetector rhymeDetector;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "songbook-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Snapshot snapshot;
+    // Writer thread only
+    private int nextSegmentId;
+
+    /**
+     * A rhyme found in a song: the song and the character offset of the word.
+     */
+    public static final class Hit {
+        public final Path file;
+        public final int offset;
+
+        Hit(Path file, int offset) {
+            this.file = file;
+            this.offset = offset;
+        }
+    }
+
+    private SongbookIndex(Path root, RhymeDetector rhymeDetector) {
+        this.root = root.toAbsolutePath().normalize();
+        this.indexDirectory = this.root.resolve(INDEX_DIRECTORY);
+        this.rhymeDetector = rhymeDetector;
+    }
+
+    /**
+     * Opens the index of a songbook folder, creating an empty one if needed.
+     */
+    public static SongbookIndex open(Path root, RhymeDetector rhymeDetector) throws IOException {
+        SongbookIndex index = new SongbookIndex(root, rhymeDetector);
+        Files.createDirectories(index.indexDirectory);
+        index.load();
+        return index;
+    }
+
+    /**
+     * Returns the nearest folder above a file that holds an index, or null.
+     */
+    public static Path findRoot(Path file) {
+        for (Path dir = file.toAbsolutePath().getParent(); dir != null; dir = dir.getParent()) {
+            if (Files.isDirectory(dir.resolve(INDEX_DIRECTORY))) {
+                return dir;
+            }
+        }
+        return null;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns whether a file is one this index keeps: a ".txt" file in the
+     * songbook folder, outside the index directory.
+     */
+    public boolean isSong(Path file) {
+        Path path = file.toAbsolutePath().normalize();
+        return path.startsWith(root) && !path.startsWith(indexDirectory)
+               && path.getFileName().toString().endsWith(SONG_SUFFIX);
+    }
+
+    public int getSongCount() {
+        return snapshot.live.size();
+    }
+
+    public int getSegmentCount() {
+        return snapshot.segments.size();
+    }
+
+    /**
+     * Indexes new and changed songs in the folder and forgets deleted ones.
+     * Runs in the background; the future yields the number of songs (re)indexed.
+     */
+    public Future<Integer> indexFolder() {
+        return writer.submit(() -> {
+            List<Path> songs;
+            try (Stream<Path> files = Files.walk(root)) {
+                songs = files.filter(path -> isSong(path) && Files.isRegularFile(path))
+                             .sorted()
+                             .collect(Collectors.toList());
+            }
+
+            Snapshot current = snapshot;
+            Set<String> gone = new HashSet<>(current.live.keySet());
+            List<SongInput> batch = new ArrayList<>();
+            int indexed = 0;
+            for (Path song : songs) {
+                String name = relativeName(song);
+                gone.remove(name);
+                BasicFileAttributes attributes = Files.readAttributes(song, BasicFileAttributes.class);
+                long size = attributes.size();
+                long modified = attributes.lastModifiedTime().toMillis();
+                if (current.isUnchanged(name, size, modified)) continue;
+
+                String text;
+                try {
+                    text = FileManager.read(song.toFile());
+                } catch (IOException e) {
+                    continue;
+                }
+                batch.add(new SongInput(name, size, modified, false, text));
+                indexed++;
+                if (batch.size() == SONGS_PER_SEGMENT) {
+                    addSegment(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            for (String name : gone) {
+                batch.add(new SongInput(name, 0, 0, true, ""));
+            }
+            if (!batch.isEmpty()) {
+                addSegment(batch);
+            }
+            mergeIfNeeded();
+            return indexed;
+        });
+    }
+
+    /**
+     * Re-indexes one song after it was saved with the given text. Files that
+     * are not songs (see {@link #isSong(Path)}) are ignored.
+     */
+    public void updateFile(Path file, String text) {
+        if (!isSong(file)) return;
+        writer.submit(() -> {
+            String name = relativeName(file);
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            addSegment(Collections.singletonList(new SongInput(name, attributes.size(),
+                attributes.lastModifiedTime().toMillis(), false, text)));
+            mergeIfNeeded();
+            return null;
+        });
+    }
+
+    /**
+     * Returns up to {@code limit} places where words rhyming with {@code word}
+     * (sharing its phonetic ending) occur. Hits come segment by segment, oldest
+     * first, and by song path and offset within a segment; decoding stops as
+     * soon as the limit is reached.
+     */
+    public List<Hit> findRhymes(String word, int limit) {
+        List<Hit> hits = new ArrayList<>();
+        String ending = rhymeDetector.getPhoneticEnding(word);
+        if (ending == null || limit <= 0) return hits;
+
+        Snapshot current = snapshot;
+        for (int s = 0; s < current.segments.size() && hits.size() < limit; s++) {
+            Segment segment = current.segments.get(s);
+            int entry = segment.find(ending);
+            if (entry < 0) continue;
+
+            int segmentIndex = s;
+            Path[] file = new Path[1];
+            int[] fileSong = { -1 };
+            segment.forEachPosting(entry, (song, offset) -> {
+                if (song != fileSong[0]) {
+                    file[0] = current.isLive(segmentIndex, song) ? root.resolve(segment.names[song]) : null;
+                    fileSong[0] = song;
+                }
+                if (file[0] != null) {
+                    hits.add(new Hit(file[0], offset));
+                }
+                return hits.size() < limit;
+            });
+        }
+        return hits;
+    }
+
+    /**
+     * Returns how many indexed words rhyme with {@code word}. Copies of songs
+     * that newer segments have replaced are not counted; only segments holding
+     * such copies need their postings decoded.
+     */
+    public int countRhymes(String word) {
+        String ending = rhymeDetector.getPhoneticEnding(word);
+        if (ending == null) return 0;
+
+        Snapshot current = snapshot;
+        int count = 0;
+        for (int s = 0; s < current.segments.size(); s++) {
+            Segment segment = current.segments.get(s);
+            int entry = segment.find(ending);
+            if (entry < 0) continue;
+            if (current.allLive[s]) {
+                count += segment.count(entry);
+                continue;
+            }
+
+            int segmentIndex = s;
+            int[] live = { 0 };
+            segment.forEachPosting(entry, (song, offset) -> {
+                if (current.isLive(segmentIndex, song)) {
+                    live[0]++;
+                }
+                return true;
+            });
+            count += live[0];
+        }
+        return count;
+    }
+
+    /**
+     * Returns the line of a song containing an offset, trimmed, for display.
+     */
+    public static String lineAt(String text, int offset) {
+        offset = Math.min(offset, text.length());
+        int start = text.lastIndexOf('\n', offset - 1) + 1;
+        int end = text.indexOf('\n', offset);
+        return text.substring(start, end < 0 ? text.length() : end).trim();
+    }
+
+    public void close() {
+        writer.shutdown();
+    }
+
+    private String relativeName(Path song) {
+        return root.relativize(song.toAbsolutePath().normalize()).toString().replace(File.separatorChar, '/');
+    }
+
+    // ---------------------------------------------------------------- state
+
+    /**
+     * The segments in use, oldest first, and which copy of each song is live.
+     */
+    private static final class Snapshot {
+        final List<Segment> segments;
+        // Song name -> {segment index, song number in that segment}
+        final Map<String, int[]> live;
+        // Per segment, whether every song in it is the live copy
+        final boolean[] allLive;
+
+        Snapshot(List<Segment> segments) {
+            this.segments = segments;
+            this.live = new HashMap<>();
+            for (int s = 0; s < segments.size(); s++) {
+                Segment segment = segments.get(s);
+                for (int song = 0; song < segment.names.length; song++) {
+                    if (segment.deleted[song]) {
+                        live.remove(segment.names[song]);
+                    } else {
+                        live.put(segment.names[song], new int[] { s, song });
+                    }
+                }
+            }
+            this.allLive = new boolean[segments.size()];
+            for (int s = 0; s < segments.size(); s++) {
+                Segment segment = segments.get(s);
+                boolean all = true;
+                for (int song = 0; song < segment.names.length && all; song++) {
+                    all = isLive(s, song);
+                }
+                allLive[s] = all;
+            }
+        }
+
+        boolean isLive(int segment, int song) {
+            int[] owner = live.get(segments.get(segment).names[song]);
+            return owner != null && owner[0] == segment && owner[1] == song;
+        }
+
+        boolean isUnchanged(String name, long size, long modified) {
+            int[] owner = live.get(name);
+            if (owner == null) return false;
+            Segment segment = segments.get(owner[0]);
+            return segment.sizes[owner[1]] == size && segment.modified[owner[1]] == modified;
+        }
+    }
+
+    private void load() throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        Set<String> listed = new HashSet<>();
+        Path manifest = indexDirectory.resolve(MANIFEST);
+        if (Files.isRegularFile(manifest)) {
+            for (String name : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                if (name.isEmpty()) continue;
+                try {
+                    segments.add(Segment.open(indexDirectory.resolve(name)));
+                    listed.add(name);
+                } catch (IOException e) {
+                    // A damaged segment only loses its songs; indexFolder restores them
+                }
+                nextSegmentId = Math.max(nextSegmentId, segmentId(name) + 1);
+            }
+        }
+
+        // Leftovers of an interrupted write or merge
+        try (Stream<Path> files = Files.list(indexDirectory)) {
+            files.filter(path -> !listed.contains(path.getFileName().toString())
+                                 && !path.getFileName().toString().equals(MANIFEST))
+                 .forEach(path -> path.toFile().delete());
+        }
+        snapshot = new Snapshot(segments);
+    }
+
+    private void addSegment(List<SongInput> songs) throws IOException {
+        List<Segment> segments = new ArrayList<>(snapshot.segments);
+        segments.add(writeSegment(songs));
+        publish(segments);
+    }
+
+    /**
+     * Merges the newest segments once there are enough of them in one tier.
+     * For each tier from the lowest up, the tail is taken back to the first
+     * segment of a higher tier; if it holds SEGMENTS_PER_TIER segments of this
+     * tier it is merged. Smaller segments caught between them are merged along
+     * but not counted. A merge can fill the tier above, so this repeats.
+     */
+    private void mergeIfNeeded() throws IOException {
+        while (true) {
+            List<Segment> segments = snapshot.segments;
+            int from = -1;
+            int top = 0;
+            for (Segment segment : segments) {
+                top = Math.max(top, tier(segment));
+            }
+            for (int tier = 0; tier <= top && from < 0; tier++) {
+                int start = segments.size();
+                int inTier = 0;
+                while (start > 0 && tier(segments.get(start - 1)) <= tier) {
+                    start--;
+                    if (tier(segments.get(start)) == tier) inTier++;
+                }
+                if (inTier >= SEGMENTS_PER_TIER) {
+                    from = start;
+                }
+            }
+            if (from < 0) return;
+            merge(from);
+        }
+    }
+
+    private static int tier(Segment segment) {
+        int tier = 0;
+        for (long limit = TIER_BASE_BYTES; segment.buffer.capacity() >= limit; limit *= SEGMENTS_PER_TIER) {
+            tier++;
+        }
+        return tier;
+    }
+
+    /**
+     * Merges the segments from {@code from} to the newest into one, keeping
+     * only live songs. Unless every segment is merged, songs deleted in the
+     * merged segments keep their deleted flag, since older segments may still
+     * hold copies of them.
+     */
+    private void merge(int from) throws IOException {
+        Snapshot current = snapshot;
+        List<Segment> merging = current.segments.subList(from, current.segments.size());
+
+        List<String> names = new ArrayList<>();
+        Set<String> deleted = new HashSet<>();
+        for (int s = from; s < current.segments.size(); s++) {
+            Segment segment = current.segments.get(s);
+            for (int song = 0; song < segment.names.length; song++) {
+                String name = segment.names[song];
+                if (current.isLive(s, song)) {
+                    names.add(name);
+                } else if (from > 0 && !current.live.containsKey(name)) {
+                    deleted.add(name);
+                }
+            }
+        }
+        names.addAll(deleted);
+        Collections.sort(names);
+        Map<String, Integer> newNumber = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            newNumber.put(names.get(i), i);
+        }
+
+        // Collect every live posting under its new song number
+        TreeMap<String, Postings> merged = new TreeMap<>();
+        for (int s = from; s < current.segments.size(); s++) {
+            Segment segment = current.segments.get(s);
+            int segmentIndex = s;
+            for (int entry = 0; entry < segment.termCount; entry++) {
+                int[] buffer = new int[2 * segment.count(entry)];
+                int[] filled = { 0 };
+                segment.forEachPosting(entry, (song, offset) -> {
+                    if (current.isLive(segmentIndex, song)) {
+                        buffer[filled[0]++] = newNumber.get(segment.names[song]);
+                        buffer[filled[0]++] = offset;
+                    }
+                    return true;
+                });
+                if (filled[0] == 0) continue;
+                Postings postings = merged.computeIfAbsent(segment.term(entry), k -> new Postings());
+                for (int i = 0; i < filled[0]; i += 2) {
+                    postings.add(buffer[i], buffer[i + 1]);
+                }
+            }
+        }
+        // Songs arrive in segment order, not name order; sort each list
+        for (Postings postings : merged.values()) {
+            postings.sort();
+        }
+
+        List<SongInput> songs = new ArrayList<>(names.size());
+        for (String name : names) {
+            int[] owner = current.live.get(name);
+            if (owner == null) {
+                songs.add(new SongInput(name, 0, 0, true, null));
+                continue;
+            }
+            Segment segment = current.segments.get(owner[0]);
+            songs.add(new SongInput(name, segment.sizes[owner[1]], segment.modified[owner[1]], false, null));
+        }
+
+        List<Segment> segments = new ArrayList<>(current.segments.subList(0, from));
+        segments.add(write(songs, merged));
+        publish(segments);
+        for (Segment old : merging) {
+            // Still mapped by readers of the old snapshot; on most systems the
+            // file can go now, otherwise the next load removes it
+            old.file.toFile().delete();
+        }
+    }
+
+    private void publish(List<Segment> segments) throws IOException {
+        StringBuilder manifest = new StringBuilder();
+        for (Segment segment : segments) {
+            manifest.append(segment.file.getFileName()).append('\n');
+        }
+        Path temp = indexDirectory.resolve(MANIFEST + ".tmp");
+        Files.write(temp, manifest.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, indexDirectory.resolve(MANIFEST),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        snapshot = new Snapshot(segments);
+    }
+
+    private static int segmentId(String name) {
+        try {
+            return Integer.parseInt(name.substring(4, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    // -------------------------------------------------------------- writing
+
+    private static final class SongInput {
+        final String name;
+        final long size;
+        final long modified;
+        final boolean deleted;
+        final String text;
+
+        SongInput(String name, long size, long modified, boolean deleted, String text) {
+            this.name = name;
+            this.size = size;
+            this.modified = modified;
+            this.deleted = deleted;
+            this.text = text;
+        }
+    }
+
+    /**
+     * (song, offset) pairs in a growable int array.
+     */
+    private static final class Postings {
+        int[] data = new int[8];
+        int size;
+
+        void add(int song, int offset) {
+            if (size + 2 > data.length) {
+                int[] grown = new int[data.length * 2];
+                System.arraycopy(data, 0, grown, 0, size);
+                data = grown;
+            }
+            data[size++] = song;
+            data[size++] = offset;
+        }
+
+        void sort() {
+            long[] pairs = new long[size / 2];
+            for (int i = 0; i < pairs.length; i++) {
+                pairs[i] = ((long) data[2 * i] << 32) | (data[2 * i + 1] & 0xffffffffL);
+            }
+            Arrays.sort(pairs);
+            for (int i = 0; i < pairs.length; i++) {
+                data[2 * i] = (int) (pairs[i] >>> 32);
+                data[2 * i + 1] = (int) pairs[i];
+            }
+        }
+    }
+
+    private Segment writeSegment(List<SongInput> songs) throws IOException {
+        TreeMap<String, Postings> terms = new TreeMap<>();
+        for (int song = 0; song < songs.size(); song++) {
+            SongInput input = songs.get(song);
+            if (input.deleted) continue;
+
+            int number = song;
+            AsciiScanner.forEachWord(input.text, RhymeDetector.MIN_WORD_LENGTH, (start, end, word) -> {
+                String ending = rhymeDetector.getPhoneticEnding(word);
+                if (ending != null && ending.length() >= 2) {
+                    terms.computeIfAbsent(ending, k -> new Postings()).add(number, start);
+                }
+            });
+        }
+        return write(songs, terms);
+    }
+
+    private Segment write(List<SongInput> songs, TreeMap<String, Postings> terms) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(header);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(RhymeDetector.CONFIG_VERSION);
+        out.writeInt(songs.size());
+        for (SongInput song : songs) {
+            out.writeUTF(song.name);
+            out.writeLong(song.size);
+            out.writeLong(song.modified);
+            out.writeBoolean(song.deleted);
+        }
+        out.flush();
+
+        ByteArrayOutputStream postings = new ByteArrayOutputStream();
+        ByteArrayOutputStream termBytes = new ByteArrayOutputStream();
+        ByteBuffer entries = ByteBuffer.allocate(terms.size() * ENTRY_BYTES);
+        for (Map.Entry<String, Postings> term : terms.entrySet()) {
+            Postings list = term.getValue();
+            entries.putInt(termBytes.size());
+            entries.putInt(postings.size());
+            entries.putInt(list.size / 2);
+            termBytes.write(term.getKey().getBytes(StandardCharsets.UTF_8));
+
+            int previousSong = 0;
+            int previousOffset = 0;
+            for (int i = 0; i < list.size; i += 2) {
+                int song = list.data[i];
+                int offset = list.data[i + 1];
+                writeVarint(postings, song - previousSong);
+                writeVarint(postings, song == previousSong && i > 0 ? offset - previousOffset : offset);
+                previousSong = song;
+                previousOffset = offset;
+            }
+        }
+
+        int postingsStart = header.size();
+        int termsStart = postingsStart + postings.size();
+        int entriesStart = termsStart + termBytes.size();
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+        footer.putInt(postingsStart).putInt(termsStart).putInt(entriesStart).putInt(terms.size()).putInt(MAGIC);
+
+        Path file = indexDirectory.resolve(String.format("seg-%06d%s", nextSegmentId++, SEGMENT_SUFFIX));
+        Path temp = indexDirectory.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, ByteBuffer.wrap(header.toByteArray()));
+            writeFully(channel, ByteBuffer.wrap(postings.toByteArray()));
+            writeFully(channel, ByteBuffer.wrap(termBytes.toByteArray()));
+            writeFully(channel, entries.flip());
+            writeFully(channel, footer.flip());
+            channel.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Segment.open(file);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    // -------------------------------------------------------------- reading
+
+    private interface PostingConsumer {
+        /** Returns false to stop decoding. */
+        boolean accept(int song, int offset);
+    }
+
+    /**
+     * One memory-mapped segment file.
+     */
+    private static final class Segment {
+        final Path file;
+        final MappedByteBuffer buffer;
+        final String[] names;
+        final long[] sizes;
+        final long[] modified;
+        final boolean[] deleted;
+        final int postingsStart;
+        final int termsStart;
+        final int entriesStart;
+        final int termCount;
+
+        private Segment(Path file, MappedByteBuffer buffer) throws IOException {
+            this.file = file;
+            this.buffer = buffer;
+
+            int footer = buffer.capacity() - FOOTER_BYTES;
+            if (footer < 0 || buffer.getInt(footer + 16) != MAGIC) {
+                throw new IOException("Not an index segment: " + file);
+            }
+            postingsStart = buffer.getInt(footer);
+            termsStart = buffer.getInt(footer + 4);
+            entriesStart = buffer.getInt(footer + 8);
+            termCount = buffer.getInt(footer + 12);
+
+            byte[] header = new byte[postingsStart];
+            buffer.get(0, header);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || in.readInt() != RhymeDetector.CONFIG_VERSION) {
+                throw new IOException("Outdated index segment: " + file);
+            }
+            int songCount = in.readInt();
+            names = new String[songCount];
+            sizes = new long[songCount];
+            modified = new long[songCount];
+            deleted = new boolean[songCount];
+            for (int i = 0; i < songCount; i++) {
+                names[i] = in.readUTF();
+                sizes[i] = in.readLong();
+                modified[i] = in.readLong();
+                deleted[i] = in.readBoolean();
+            }
+        }
+
+        static Segment open(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                // The mapping stays valid after the channel is closed
+                return new Segment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        String term(int entry) {
+            int start = buffer.getInt(entriesStart + entry * ENTRY_BYTES);
+            int end = entry + 1 < termCount
+                ? buffer.getInt(entriesStart + (entry + 1) * ENTRY_BYTES)
+                : entriesStart - termsStart;
+            byte[] bytes = new byte[end - start];
+            buffer.get(termsStart + start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int count(int entry) {
+            return buffer.getInt(entriesStart + entry * ENTRY_BYTES + 8);
+        }
+
+        /**
+         * Binary search over the sorted terms; returns the entry or -1.
+         */
+        int find(String ending) {
+            int low = 0;
+            int high = termCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = term(mid).compareTo(ending);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        void forEachPosting(int entry, PostingConsumer consumer) {
+            int position = postingsStart + buffer.getInt(entriesStart + entry * ENTRY_BYTES + 4);
+            int count = count(entry);
+            int song = 0;
+            int offset = 0;
+            for (int i = 0; i < count; i++) {
+                int songDelta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = buffer.get(position++);
+                    songDelta |= (b & 0x7f) << shift;
+                    shift += 7;
+                } while (b < 0);
+
+                int offsetValue = 0;
+                shift = 0;
+                do {
+                    b = buffer.get(position++);
+                    offsetValue |= (b & 0x7f) << shift;
+                    shift += 7;
+                } while (b < 0);
+
+                song += songDelta;
+                offset = songDelta == 0 && i > 0 ? offset + offsetValue : offsetValue;
+                if (!consumer.accept(song, offset)) return;
+            }
+        }
+    }
+}
@@ -13,6 +13,7 @@ public class StatusBar extends JPanel {
     
     private JLabel wordCountLabel;
     private JLabel charCountLabel;
+    private JLabel syllableCountLabel;
     private JLabel rhymeCountLabel;
     
     public StatusBar() {
@@ -29,10 +30,13 @@ public class StatusBar extends JPanel {
         
         wordCountLabel = createLabel("Words: 0");
         charCountLabel = createLabel("Characters: 0");
+        syllableCountLabel = createLabel("Line syllables: 0");
         
         leftPanel.add(wordCountLabel);
         leftPanel.add(createSeparator());
         leftPanel.add(charCountLabel);
+        leftPanel.add(createSeparator());
+        leftPanel.add(syllableCountLabel);
         
         // Right panel for rhyme count
         JPanel rightPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 15, 0));
@@ -66,4 +70,8 @@ public class StatusBar extends JPanel {
         charCountLabel.setText("Characters: " + charCount);
         rhymeCountLabel.setText("Rhymes: " + rhymeCount);
     }
+
+    public void updateLineSyllables(int syllableCount) {
+        syllableCountLabel.setText("Line syllables: " + syllableCount);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.rhyme_editor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SyllableCounter - Estimates syllables per line from spelling
+ *
+ * Uses the same vowel rules as {@link RhymeDetector}: each run of vowels is one
+ * syllable, 'y' counts as a vowel after the first letter, and a silent final
+ * 'e' is dropped (except in "-le" endings like "little").
+ *
+ * Results are cached per line by content hash, so only edited lines are
+ * recounted even in very large documents.
+ */
+public class SyllableCounter {
+
+    private static final int MAX_CACHED_LINES = 32768;
+
+    private final Map<Long, Integer> lineCache =
+        new LinkedHashMap<Long, Integer>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                return size() > MAX_CACHED_LINES;
+            }
+        };
+
+    public int getCacheSize() {
+        return lineCache.size();
+    }
+
+    public void clearCache() {
+        lineCache.clear();
+    }
+
+    /**
+     * Returns the syllable count of a line, reusing the cached count if the
+     * same line content was seen before.
+     */
+    public int countLine(String line) {
+        long key = ContentHash.of(line);
+        Integer cached = lineCache.get(key);
+        if (cached != null) return cached;
+
+        int count = 0;
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetter(line.charAt(i))) i++;
+            int start = i;
+            while (i < length && (Character.isLetter(line.charAt(i)) || line.charAt(i) == '\'')) i++;
+            if (i > start) {
+                count += countWord(line, start, i);
+            }
+        }
+
+        lineCache.put(key, count);
+        return count;
+    }
+
+    public int countWord(String word) {
+        return countWord(word, 0, word.length());
+    }
+
+    private int countWord(CharSequence text, int start, int end) {
+        int syllables = 0;
+        boolean previousVowel = false;
+        for (int i = start; i < end; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            boolean vowel = RhymeDetector.isVowel(c) || (c == 'y' && i > start);
+            if (vowel && !previousVowel) {
+                syllables++;
+            }
+            previousVowel = vowel;
+        }
+
+        // Silent final 'e' ("fire", "stone"), but not "-le" after a consonant ("little")
+        int length = end - start;
+        if (length > 2 && Character.toLowerCase(text.charAt(end - 1)) == 'e'
+                && !RhymeDetector.isVowel(text.charAt(end - 2))) {
+            boolean consonantLe = Character.toLowerCase(text.charAt(end - 2)) == 'l'
+                && !RhymeDetector.isVowel(text.charAt(end - 3));
+            if (!consonantLe && syllables > 1) {
+                syllables--;
+            }
+        }
+
+        return Math.max(syllables, length > 0 ? 1 : 0);
+    }
+}
@@ -0,0 +1,61 @@
+package com.rhyme_editor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TextChunker - Splits text into chunks at whitespace boundaries
+ *
+ * Chunk boundaries are content-defined: a chunk ends after a line whose hash
+ * matches a fixed bit pattern. An edit therefore only changes the chunks it
+ * touches, and chunks further down the file keep their content (and hash).
+ * Words never span a chunk boundary, so chunks can be analysed independently.
+ */
+public final class TextChunker {
+
+    private static final int MIN_CHUNK = 1024;
+    private static final int MAX_CHUNK = 64 * 1024;
+    // About one boundary every 64 lines
+    private static final long BOUNDARY_MASK = 63;
+
+    private TextChunker() {
+    }
+
+    public static List<String> split(String text) {
+        List<String> chunks = new ArrayList<>();
+        int length = text.length();
+        int chunkStart = 0;
+        int lineStart = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            int chunkLength = i + 1 - chunkStart;
+
+            if (c == '\n') {
+                long lineHash = ContentHash.of(text, lineStart, i);
+                lineStart = i + 1;
+                if (chunkLength >= MAX_CHUNK
+                        || (chunkLength >= MIN_CHUNK && (lineHash & BOUNDARY_MASK) == 0)) {
+                    chunks.add(text.substring(chunkStart, i + 1));
+                    chunkStart = i + 1;
+                }
+            } else if (chunkLength >= MAX_CHUNK && isSeparator(c)) {
+                // Very long lines are cut at the next whitespace instead
+                chunks.add(text.substring(chunkStart, i + 1));
+                chunkStart = i + 1;
+            }
+        }
+
+        if (chunkStart < length) {
+            chunks.add(text.substring(chunkStart));
+        }
+        return chunks;
+    }
+
+    /**
+     * Matches the characters of the regex class {@code \s} that the detector splits words on.
+     */
+    static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -25,39 +25,84 @@ import javax.swing.text.Utilities;
 public class TextLineNumber extends JPanel implements PropertyChangeListener {
     
     private final static int HEIGHT = Integer.MAX_VALUE - 1000000;
+    private final static int SYLLABLE_COLUMN = 4;
     private JTextComponent component;
+    private RhymeSchemeAnalyzer schemeAnalyzer;
+    private SyllableCounter syllableCounter;
     private int lastDigits;
     private int lastHeight;
     private int lastLine;
 
+    private final javax.swing.event.DocumentListener documentListener = new javax.swing.event.DocumentListener() {
+        @Override
+        public void insertUpdate(javax.swing.event.DocumentEvent e) {
+            if (schemeAnalyzer != null) {
+                schemeAnalyzer.documentChanged(e);
+            }
+            documentChanged();
+        }
+        
+        @Override
+        public void removeUpdate(javax.swing.event.DocumentEvent e) {
+            if (schemeAnalyzer != null) {
+                schemeAnalyzer.documentChanged(e);
+            }
+            documentChanged();
+        }
+        
+        @Override
+        public void changedUpdate(javax.swing.event.DocumentEvent e) {
+            documentChanged();
+        }
+    };
+
     public TextLineNumber(JTextComponent component) {
+        this(component, null, null);
+    }
+
+    /**
+     * @param schemeAnalyzer  Optional; when set, each line's rhyme-scheme letter
+     *                        is drawn next to its number.
+     * @param syllableCounter Optional; when set, each line's syllable count is
+     *                        drawn in front of its number.
+     */
+    public TextLineNumber(JTextComponent component, RhymeSchemeAnalyzer schemeAnalyzer,
+                          SyllableCounter syllableCounter) {
         this.component = component;
+        this.schemeAnalyzer = schemeAnalyzer;
+        this.syllableCounter = syllableCounter;
         
         setFont(component.getFont().deriveFont(12f));
         setForeground(new Color(150, 150, 150));
         setBackground(new Color(248, 248, 248));
         setBorder(new EmptyBorder(0, 10, 0, 10));
         
-        component.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            @Override
-            public void insertUpdate(javax.swing.event.DocumentEvent e) {
-                documentChanged();
-            }
-            
-            @Override
-            public void removeUpdate(javax.swing.event.DocumentEvent e) {
-                documentChanged();
-            }
-            
-            @Override
-            public void changedUpdate(javax.swing.event.DocumentEvent e) {
-                documentChanged();
-            }
-        });
+        component.getDocument().addDocumentListener(documentListener);
         
         component.addPropertyChangeListener("font", this);
     }
 
+    /**
+     * Stops reacting to document edits, e.g. while a large text is inserted.
+     */
+    public void suspend() {
+        component.getDocument().removeDocumentListener(documentListener);
+    }
+
+    /**
+     * Resumes after {@link #suspend()} and refreshes once for everything that changed.
+     */
+    public void resume() {
+        component.getDocument().addDocumentListener(documentListener);
+        if (schemeAnalyzer != null) {
+            // It did not see the edits made meanwhile
+            schemeAnalyzer.clearCache();
+        }
+        lastDigits = 0;
+        lastHeight = -1;
+        documentChanged();
+    }
+
     private void documentChanged() {
         SwingUtilities.invokeLater(() -> {
             try {
@@ -67,6 +112,10 @@ public class TextLineNumber extends JPanel implements PropertyChangeListener {
                     setPreferredWidth();
                     repaint();
                     lastHeight = rect.y;
+                } else if (schemeAnalyzer != null || syllableCounter != null) {
+                    // An edit can relabel other lines of the same stanza
+                    // and changes the syllable count of the edited line
+                    repaint();
                 }
             } catch (BadLocationException ex) {
                 // Ignore
@@ -92,6 +141,12 @@ public class TextLineNumber extends JPanel implements PropertyChangeListener {
             lastDigits = digits;
             FontMetrics fontMetrics = getFontMetrics(getFont());
             int width = fontMetrics.charWidth('0') * digits;
+            if (schemeAnalyzer != null) {
+                width += fontMetrics.charWidth('W') * 2;
+            }
+            if (syllableCounter != null) {
+                width += fontMetrics.charWidth('0') * SYLLABLE_COLUMN;
+            }
             Insets insets = getInsets();
             int preferredWidth = insets.left + insets.right + width;
 
@@ -113,6 +168,9 @@ public class TextLineNumber extends JPanel implements PropertyChangeListener {
         FontMetrics fontMetrics = component.getFontMetrics(component.getFont());
         Insets insets = getInsets();
         int availableWidth = getSize().width - insets.left - insets.right;
+        int schemeWidth = schemeAnalyzer != null ? fontMetrics.charWidth('W') * 2 : 0;
+        Color schemeColor = new Color(37, 99, 235);
+        Color syllableColor = new Color(190, 190, 190);
 
         Rectangle clip = g.getClipBounds();
         int rowStartOffset = component.viewToModel(new Point(0, clip.y));
@@ -128,14 +186,47 @@ public class TextLineNumber extends JPanel implements PropertyChangeListener {
                 int lineNumber = root.getElementIndex(rowStartOffset) + 1;
                 String lineStr = String.valueOf(lineNumber);
                 int stringWidth = fontMetrics.stringWidth(lineStr);
-                int x = availableWidth - stringWidth + insets.left;
+                int x = availableWidth - schemeWidth - stringWidth + insets.left;
                 int y = r.y + r.height - fontMetrics.getDescent();
                 g.drawString(lineStr, x, y);
 
-                rowStartOffset = Utilities.getRowEnd(component, rowStartOffset) + 1;
+                // Only the first row of a wrapped line carries the scheme letter
+                Element line = root.getElement(lineNumber - 1);
+                // An unwrapped long line is one row; finding its end by
+                // hit-testing would walk every character
+                boolean unwrapped = LongLineEditorKit.isUnwrappedLine(component, rowStartOffset);
+                if (schemeAnalyzer != null && rowStartOffset == line.getStartOffset()) {
+                    char letter = schemeAnalyzer.letterForLine(component.getDocument(), lineNumber - 1);
+                    if (letter != 0) {
+                        g.setColor(schemeColor);
+                        g.drawString(String.valueOf(letter), insets.left + availableWidth - schemeWidth / 2, y);
+                        g.setColor(getForeground());
+                    }
+                }
+                // Counting would read the whole line on every paint
+                if (syllableCounter != null && rowStartOffset == line.getStartOffset() && !unwrapped) {
+                    int syllables = syllableCounter.countLine(lineText(line));
+                    if (syllables > 0) {
+                        g.setColor(syllableColor);
+                        g.drawString(String.valueOf(syllables), insets.left, y);
+                        g.setColor(getForeground());
+                    }
+                }
+
+                rowStartOffset = unwrapped ? line.getEndOffset()
+                                           : Utilities.getRowEnd(component, rowStartOffset) + 1;
             } catch (BadLocationException e) {
                 break;
             }
         }
     }
+
+    private String lineText(Element line) {
+        try {
+            return component.getDocument().getText(line.getStartOffset(),
+                                                   line.getEndOffset() - line.getStartOffset());
+        } catch (BadLocationException e) {
+            return "";
+        }
+    }
 }
\ No newline at end of file
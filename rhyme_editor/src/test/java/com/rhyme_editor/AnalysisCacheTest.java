@@ -0,0 +1,79 @@
+package com.rhyme_editor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AnalysisCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final RhymeDetector detector = new RhymeDetector();
+
+    private static String song(int verses, String seed) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < verses; i++) {
+            text.append("the ").append(seed).append(i).append(" light shines bright tonight\n")
+                .append("we run through the rain again and again\n\n");
+        }
+        return text.toString();
+    }
+
+    private File[] entries() {
+        return directory.toFile().listFiles((dir, name) -> name.endsWith(".rgc") || name.endsWith(".rgf"));
+    }
+
+    @Test
+    void cachedResultMatchesFreshAnalysis() {
+        String text = song(200, "verse");
+        AnalysisCache cache = new AnalysisCache(detector, directory.toFile(), 1 << 30);
+
+        Map<String, List<String>> expected = detector.collectEndings(text);
+        assertEquals(expected, cache.collectEndings(text));
+        assertEquals(expected, new AnalysisCache(detector, directory.toFile(), 1 << 30).collectEndings(text));
+    }
+
+    @Test
+    void damagedEntryIsDiscarded() throws IOException {
+        String text = song(20, "verse");
+        new AnalysisCache(detector, directory.toFile(), 1 << 30).collectEndings(text);
+
+        for (File entry : entries()) {
+            try (RandomAccessFile file = new RandomAccessFile(entry, "rw")) {
+                // Flip a byte in the payload, past the header
+                file.seek(file.length() - 3);
+                int b = file.read();
+                file.seek(file.length() - 3);
+                file.write(b ^ 0x20);
+            }
+        }
+
+        AnalysisCache reopened = new AnalysisCache(detector, directory.toFile(), 1 << 30);
+        assertEquals(detector.collectEndings(text), reopened.collectEndings(text));
+    }
+
+    @Test
+    void staysWithinBudgetAcrossReloads() {
+        long budget = 16 * 1024;
+        AnalysisCache cache = new AnalysisCache(detector, directory.toFile(), budget);
+        for (int i = 0; i < 30; i++) {
+            cache.collectEndings(song(40, "reload" + i));
+        }
+
+        long total = 0;
+        for (File entry : entries()) {
+            total += entry.length();
+        }
+        assertTrue(total <= budget, "cache holds " + total + " bytes");
+    }
+}
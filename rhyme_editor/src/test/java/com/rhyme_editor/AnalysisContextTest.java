@@ -0,0 +1,126 @@
+package com.rhyme_editor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AnalysisContextTest {
+
+    private static final String TEXT = "The night is bright and the light is right\n"
+        + "I take the day away and play the way I may\n"
+        + "A fire, a wire, a choir to inspire\n";
+
+    // Bytes held by a highlighted editor, and by the same editor compacted
+    private static long full;
+    private static long compacted;
+
+    @BeforeAll
+    static void measure() throws Exception {
+        EditorPane editor = highlighted(new AnalysisContext(1, Long.MAX_VALUE));
+        full = onEdt(editor::estimateAnalysisBytes);
+        onEdt(editor::compact);
+        compacted = onEdt(editor::estimateAnalysisBytes);
+        assertTrue(full > compacted, full + " <= " + compacted);
+    }
+
+    @Test
+    void compactsLeastRecentlyIdleFirst() throws Exception {
+        // Room for one compacted and two full editors
+        AnalysisContext context = new AnalysisContext(1, 2 * full + compacted);
+        EditorPane first = highlighted(context);
+        EditorPane second = highlighted(context);
+        EditorPane third = highlighted(context);
+
+        onEdt(() -> {
+            context.markIdle(first);
+            context.markIdle(second);
+            // Going idle again makes the first editor the most recent
+            context.markIdle(first);
+            context.markIdle(third);
+        });
+
+        assertTrue(second.isCompacted());
+        assertFalse(first.isCompacted());
+        assertFalse(third.isCompacted());
+    }
+
+    @Test
+    void stopsOnceUnderBudget() throws Exception {
+        // Room for two compacted and one full editor
+        AnalysisContext context = new AnalysisContext(1, full + 2 * compacted);
+        EditorPane first = highlighted(context);
+        EditorPane second = highlighted(context);
+        EditorPane third = highlighted(context);
+
+        onEdt(() -> {
+            context.markIdle(first);
+            context.markIdle(second);
+            context.markIdle(third);
+        });
+
+        assertTrue(first.isCompacted());
+        assertTrue(second.isCompacted());
+        assertFalse(third.isCompacted());
+        long total = onEdt(() -> first.estimateAnalysisBytes()
+                                 + second.estimateAnalysisBytes()
+                                 + third.estimateAnalysisBytes());
+        assertEquals(full + 2 * compacted, total);
+    }
+
+    @Test
+    void activeEditorsAreNeverCompacted() throws Exception {
+        AnalysisContext context = new AnalysisContext(1, 0);
+        EditorPane idle = highlighted(context);
+        EditorPane active = highlighted(context);
+
+        onEdt(() -> context.markIdle(idle));
+
+        assertTrue(idle.isCompacted());
+        assertFalse(active.isCompacted());
+    }
+
+    /** Creates an editor holding TEXT and waits for its first highlighting pass. */
+    private static EditorPane highlighted(AnalysisContext context) throws Exception {
+        CountDownLatch painted = new CountDownLatch(1);
+        EditorPane editor = onEdt(() -> {
+            EditorPane pane = new EditorPane(context);
+            pane.addHighlightListener(snapshotNanos -> painted.countDown());
+            pane.getDocument().insertString(0, TEXT, null);
+            return pane;
+        });
+        assertTrue(painted.await(10, TimeUnit.SECONDS), "no highlighting pass");
+        return editor;
+    }
+
+    private interface EdtTask<T> {
+        T call() throws Exception;
+    }
+
+    private static <T> T onEdt(EdtTask<T> task) throws Exception {
+        Object[] result = new Object[1];
+        Exception[] failure = new Exception[1];
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                result[0] = task.call();
+            } catch (Exception e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+        @SuppressWarnings("unchecked")
+        T value = (T) result[0];
+        return value;
+    }
+
+    private static void onEdt(Runnable task) throws Exception {
+        SwingUtilities.invokeAndWait(task);
+    }
+}
@@ -0,0 +1,163 @@
+package com.rhyme_editor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the scanner against the regex and {@link Character} code it replaced.
+ */
+class AsciiScannerTest {
+
+    private static final String[] VOCABULARY = {
+        "fire", "Fire's", "don't", "'cause", "night", "NIGHT", "light2", "rock'n'roll",
+        "caf\u00e9", "na\u00efve", "stra\u00dfe", "\u0130stanbul", "\u03a3\u039f\u03a6\u0399\u0391",
+        "r\u00e9sum\u00e9", "x", "ab", "o'", "''"
+    };
+    // Includes non-breaking space, which \s does not match
+    private static final String SEPARATORS = " \t\n\r\f\u000B.,;:!?-\"()0123456789\u00a0\u2014";
+
+    private static String randomText(Random random, int tokens) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < tokens; i++) {
+            if (random.nextInt(4) == 0) {
+                // Arbitrary chars, mostly ASCII
+                int length = 1 + random.nextInt(6);
+                for (int j = 0; j < length; j++) {
+                    text.append(random.nextInt(5) == 0 ? (char) (0x80 + random.nextInt(0x400))
+                                                       : (char) (0x09 + random.nextInt(0x76)));
+                }
+            } else {
+                text.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+            }
+            text.append(SEPARATORS.charAt(random.nextInt(SEPARATORS.length())));
+        }
+        return text.toString();
+    }
+
+    /** RhymeDetector.cleanWords before the scanner. */
+    private static String[] regexWords(String text, int minLength) {
+        if (text.trim().isEmpty()) return new String[0];
+        String cleaned = text.replaceAll("[^a-zA-Z'\\s]", "").toLowerCase();
+        return Arrays.stream(cleaned.split("\\s+"))
+                     .filter(word -> !word.isEmpty() && word.length() >= minLength)
+                     .distinct()
+                     .toArray(String[]::new);
+    }
+
+    private static List<String> regexTokens(String text, int minLength) {
+        List<String> tokens = new ArrayList<>();
+        String cleaned = text.replaceAll("[^a-zA-Z'\\s]", "").toLowerCase();
+        for (String word : cleaned.split("\\s+")) {
+            if (!word.isEmpty() && word.length() >= minLength) {
+                tokens.add(word);
+            }
+        }
+        return tokens;
+    }
+
+    /** EditorPane.highlightWord before the scanner, on already folded text. */
+    private static List<String> characterMatches(String folded, Set<String> words) {
+        List<String> matches = new ArrayList<>();
+        for (String word : words) {
+            int index = 0;
+            while ((index = folded.indexOf(word, index)) != -1) {
+                boolean validStart = index == 0 || !Character.isLetterOrDigit(folded.charAt(index - 1));
+                boolean validEnd = index + word.length() >= folded.length()
+                    || !Character.isLetterOrDigit(folded.charAt(index + word.length()));
+                if (validStart && validEnd) {
+                    matches.add(index + ":" + word);
+                }
+                index++;
+            }
+        }
+        matches.sort(null);
+        return matches;
+    }
+
+    @Test
+    void distinctWordsMatchesRegexPath() {
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            String text = randomText(random, random.nextInt(40));
+            for (int minLength : new int[] { 1, 3 }) {
+                assertArrayEquals(regexWords(text, minLength),
+                                  AsciiScanner.distinctWords(text, minLength), text);
+            }
+        }
+    }
+
+    @Test
+    void forEachWordMatchesRegexTokensInOrder() {
+        Random random = new Random(2);
+        for (int i = 0; i < 2000; i++) {
+            String text = randomText(random, random.nextInt(40));
+            List<String> words = new ArrayList<>();
+            AsciiScanner.forEachWord(text, 3, (start, end, word) -> {
+                words.add(word);
+                // The span starts and ends on kept characters of the token
+                assertEquals(word.charAt(0), Character.toLowerCase(text.charAt(start)), text);
+                assertEquals(word.charAt(word.length() - 1), Character.toLowerCase(text.charAt(end - 1)), text);
+            });
+            assertEquals(regexTokens(text, 3), words, text);
+        }
+    }
+
+    @Test
+    void findWordsMatchesCharacterPath() {
+        Random random = new Random(3);
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : VOCABULARY) {
+            words.add(AsciiScanner.foldCase(word));
+        }
+        words.remove("''");
+
+        for (int i = 0; i < 2000; i++) {
+            String folded = AsciiScanner.foldCase(randomText(random, random.nextInt(40)));
+            List<String> matches = new ArrayList<>();
+            AsciiScanner.findWords(folded, words, (start, end, word) -> {
+                assertEquals(word, folded.substring(start, end));
+                matches.add(start + ":" + word);
+            });
+            matches.sort(null);
+            assertEquals(characterMatches(folded, words), matches, folded);
+        }
+    }
+
+    @Test
+    void foldCaseKeepsOffsets() {
+        Random random = new Random(4);
+        for (int i = 0; i < 2000; i++) {
+            String text = randomText(random, random.nextInt(20));
+            String folded = AsciiScanner.foldCase(text);
+            assertEquals(text.length(), folded.length(), text);
+            for (int j = 0; j < text.length(); j++) {
+                char c = text.charAt(j);
+                if (c < 128) {
+                    assertEquals(Character.toLowerCase(c), folded.charAt(j));
+                }
+            }
+        }
+        // Lower-casing U+0130 gives two chars; folding must not
+        assertEquals(8, AsciiScanner.foldCase("\u0130stanbul").length());
+    }
+
+    @Test
+    void classifiesAsciiLikeCharacter() {
+        for (char c = 0; c < 128; c++) {
+            assertEquals(Character.isLetterOrDigit(c), AsciiScanner.isLetterOrDigit(c), "char " + (int) c);
+            assertEquals(String.valueOf(c).matches("\\s"), AsciiScanner.classify(c) == AsciiScanner.SPACE,
+                         "char " + (int) c);
+        }
+        assertEquals(true, AsciiScanner.isLetterOrDigit('\u00e9'));
+        assertEquals(false, AsciiScanner.isLetterOrDigit('\u2014'));
+    }
+}
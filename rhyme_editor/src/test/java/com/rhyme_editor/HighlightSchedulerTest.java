@@ -0,0 +1,119 @@
+package com.rhyme_editor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class HighlightSchedulerTest {
+
+    private static final long MS = 1_000_000;
+
+    /** Bounds the expectations below are written for. */
+    private static HighlightScheduler scheduler() {
+        return new HighlightScheduler(50, 1500, 0.25);
+    }
+
+    @Test
+    void startsAtMinimumDelay() {
+        assertEquals(50, scheduler().nextDelay(0));
+        assertEquals(HighlightScheduler.DEFAULT_MIN_DELAY_MS, new HighlightScheduler().nextDelay(0));
+    }
+
+    @Test
+    void waitsLongerThanTypingGap() {
+        HighlightScheduler scheduler = scheduler();
+        for (long t = 0; t <= 2000; t += 200) {
+            scheduler.recordKeystroke(t);
+        }
+        scheduler.recordPassStart();
+        assertEquals(300, scheduler.nextDelay(2000));
+    }
+
+    @Test
+    void pausesBetweenBurstsDoNotCount() {
+        HighlightScheduler scheduler = scheduler();
+        scheduler.recordKeystroke(0);
+        scheduler.recordKeystroke(100);
+        scheduler.recordKeystroke(10_000);
+        scheduler.recordPassStart();
+        assertEquals(150, scheduler.nextDelay(10_000));
+    }
+
+    @Test
+    void expensivePassesAreNotQueuedFasterThanTheyRun() {
+        HighlightScheduler scheduler = scheduler();
+        scheduler.recordAnalysis(400 * MS);
+        assertEquals(400, scheduler.nextDelay(0));
+
+        scheduler.recordAnalysis(10_000 * MS);
+        assertEquals(1500, scheduler.nextDelay(0));
+    }
+
+    @Test
+    void keepsEdtUtilisationUnderTarget() {
+        HighlightScheduler scheduler = scheduler();
+        scheduler.recordApply(100 * MS, 1000);
+        // 100 ms of EDT work at 25% needs 400 ms between passes
+        assertEquals(400, scheduler.nextDelay(1000));
+        assertEquals(100, scheduler.nextDelay(1300));
+    }
+
+    @Test
+    void continuousTypingStillGetsAPassWithinMaxDelay() {
+        HighlightScheduler scheduler = scheduler();
+        scheduler.recordAnalysis(1200 * MS);
+
+        long t = 0;
+        long firesAt = Long.MAX_VALUE;
+        // Each keystroke restarts the timer; it fires if no key comes first
+        while (t < 5000) {
+            scheduler.recordKeystroke(t);
+            firesAt = t + scheduler.nextDelay(t);
+            if (firesAt <= t + 100) break;
+            t += 100;
+        }
+        assertTrue(firesAt <= 1500, "pass fires at " + firesAt);
+    }
+
+    @Test
+    void honoursConfiguredBounds() {
+        HighlightScheduler scheduler = new HighlightScheduler(20, 600, 0.5);
+        assertEquals(20, scheduler.nextDelay(0));
+
+        scheduler.recordAnalysis(10_000 * MS);
+        assertEquals(600, scheduler.nextDelay(0));
+
+        scheduler = new HighlightScheduler(20, 600, 0.5);
+        scheduler.recordApply(100 * MS, 1000);
+        // 100 ms of EDT work at 50% needs 200 ms between passes
+        assertEquals(200, scheduler.nextDelay(1000));
+
+        scheduler = new HighlightScheduler(20, 600, 0.5);
+        scheduler.recordAnalysis(500 * MS);
+        scheduler.recordKeystroke(0);
+        assertEquals(100, scheduler.nextDelay(500));
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new HighlightScheduler(-1, 100, 0.25));
+        assertThrows(IllegalArgumentException.class, () -> new HighlightScheduler(200, 100, 0.25));
+        assertThrows(IllegalArgumentException.class, () -> new HighlightScheduler(50, 100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HighlightScheduler(50, 100, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new HighlightScheduler(50, 100, Double.NaN));
+    }
+
+    @Test
+    void passStartBeginsANewBatch() {
+        HighlightScheduler scheduler = scheduler();
+        scheduler.recordAnalysis(1000 * MS);
+        scheduler.recordKeystroke(0);
+        assertEquals(0, scheduler.nextDelay(1600));
+
+        scheduler.recordPassStart();
+        scheduler.recordKeystroke(4000);
+        assertEquals(1000, scheduler.nextDelay(4000));
+    }
+}
@@ -0,0 +1,137 @@
+package com.rhyme_editor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LineDiffTest {
+
+    private static final String[] LINES = {
+        "the night", "the rain", "so bright", "again", "", "a fire", "higher", "la la la"
+    };
+
+    private static String apply(String oldText, List<LineDiff.Edit> edits) {
+        StringBuilder text = new StringBuilder(oldText);
+        for (int i = edits.size() - 1; i >= 0; i--) {
+            LineDiff.Edit edit = edits.get(i);
+            text.replace(edit.offset, edit.offset + edit.length, edit.text);
+        }
+        return text.toString();
+    }
+
+    private static void assertTurnsInto(String oldText, String newText) {
+        List<LineDiff.Edit> edits = LineDiff.diff(oldText, newText);
+        int end = 0;
+        for (LineDiff.Edit edit : edits) {
+            assertTrue(edit.offset >= end, "edits overlap or are out of order");
+            assertTrue(edit.length > 0 || !edit.text.isEmpty(), "empty edit");
+            end = edit.offset + edit.length;
+        }
+        assertEquals(newText, apply(oldText, edits));
+    }
+
+    private static String randomText(Random random, int lines) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            text.append(LINES[random.nextInt(LINES.length)]);
+            if (i < lines - 1 || random.nextBoolean()) text.append('\n');
+        }
+        return text.toString();
+    }
+
+    /** Copies the text with a few lines changed, inserted or deleted. */
+    private static String mutate(Random random, String text, int changes) {
+        List<String> lines = new ArrayList<>(List.of(text.split("\n", -1)));
+        for (int c = 0; c < changes; c++) {
+            int at = random.nextInt(lines.size());
+            switch (random.nextInt(3)) {
+                case 0: lines.set(at, LINES[random.nextInt(LINES.length)] + " " + c); break;
+                case 1: lines.add(at, "new line " + c); break;
+                default: if (lines.size() > 1) lines.remove(at);
+            }
+        }
+        return String.join("\n", lines);
+    }
+
+    @Test
+    void identicalTextsNeedNoEdits() {
+        assertTrue(LineDiff.diff("", "").isEmpty());
+        assertTrue(LineDiff.diff("a\nb\n", "a\nb\n").isEmpty());
+    }
+
+    @Test
+    void handlesEmptySides() {
+        assertTurnsInto("", "a\nb\n");
+        assertTurnsInto("a\nb\n", "");
+        assertTurnsInto("a", "a\n");
+        assertTurnsInto("a\n", "a");
+    }
+
+    @Test
+    void trimsEditToChangedCharacters() {
+        String oldText = "the night\nso bright\nagain\n";
+        String newText = "the night\nso brain\nagain\n";
+        List<LineDiff.Edit> edits = LineDiff.diff(oldText, newText);
+        assertEquals(1, edits.size());
+        // "ight" -> "ain" inside "bright"
+        assertEquals("the night\nso br".length(), edits.get(0).offset);
+        assertEquals("ight".length(), edits.get(0).length);
+        assertEquals("ain", edits.get(0).text);
+    }
+
+    @Test
+    void keepsUnchangedLinesBetweenEdits() {
+        String oldText = "one\ntwo\nthree\nfour\nfive\n";
+        String newText = "one\n2\nthree\nfour\n5\n";
+        List<LineDiff.Edit> edits = LineDiff.diff(oldText, newText);
+        assertEquals(2, edits.size());
+        assertEquals(newText, apply(oldText, edits));
+    }
+
+    @Test
+    void smallRandomEditsRoundTrip() {
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            String oldText = randomText(random, random.nextInt(30));
+            String newText = random.nextInt(4) == 0 ? randomText(random, random.nextInt(30))
+                                                    : mutate(random, oldText, 1 + random.nextInt(4));
+            assertTurnsInto(oldText, newText);
+        }
+    }
+
+    @Test
+    void largeMiddleIsSplitAtUniqueLines() {
+        // 3000 x 3000 lines is over the LCS limit, so anchors are needed
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            text.append(i % 10 == 0 ? "verse " + i : LINES[i % LINES.length]).append('\n');
+        }
+        String oldText = text.toString();
+        String newText = "changed first line\n" + mutate(new Random(2), oldText, 50) + "changed last line\n";
+        assertTurnsInto(oldText, newText);
+
+        // Far fewer characters touched than a whole-text replacement
+        int touched = 0;
+        for (LineDiff.Edit edit : LineDiff.diff(oldText, newText)) {
+            touched += edit.length;
+        }
+        assertTrue(touched < oldText.length() / 10, "touched " + touched);
+    }
+
+    @Test
+    void largeMiddleWithoutUniqueLinesIsReplaced() {
+        StringBuilder oldText = new StringBuilder();
+        StringBuilder newText = new StringBuilder("start\n");
+        for (int i = 0; i < 1500; i++) {
+            oldText.append("la\nla la\n");
+            newText.append("la la\nla\n");
+        }
+        newText.append("end\n");
+        assertTurnsInto(oldText.toString(), newText.toString());
+    }
+}
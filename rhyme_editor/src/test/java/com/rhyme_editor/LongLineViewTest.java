@@ -0,0 +1,158 @@
+package com.rhyme_editor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+
+import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.View;
+
+import org.junit.jupiter.api.Test;
+
+class LongLineViewTest {
+
+    private static final int LONG = LongLineEditorKit.LONG_LINE_CHARS;
+
+    private interface EdtTask {
+        void run() throws Exception;
+    }
+
+    private static void onEdt(EdtTask task) throws Exception {
+        Exception[] failure = new Exception[1];
+        Error[] error = new Error[1];
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                failure[0] = e;
+            } catch (Error e) {
+                error[0] = e;
+            }
+        });
+        if (error[0] != null) throw error[0];
+        if (failure[0] != null) throw failure[0];
+    }
+
+    /** A laid-out, headless pane showing the text with the long line kit. */
+    private static JTextPane pane(String text) throws Exception {
+        JTextPane pane = new JTextPane();
+        pane.setEditorKit(new LongLineEditorKit());
+        pane.getDocument().insertString(0, text, null);
+        pane.setSize(1000, 400);
+        SessionReplay.layOut(pane);
+        return pane;
+    }
+
+    private static View lineView(JTextPane pane, int line) {
+        View section = pane.getUI().getRootView(pane).getView(0);
+        return section.getView(line);
+    }
+
+    private static String letters(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+
+    private static int sum(int[] lengths) {
+        int total = 0;
+        for (int length : lengths) {
+            total += length;
+        }
+        return total;
+    }
+
+    @Test
+    void segmentsFollowRandomEdits() throws Exception {
+        onEdt(() -> {
+            Random random = new Random(11);
+            JTextPane pane = pane(letters(random, 20_000) + "\nshort line\n");
+            Document doc = pane.getDocument();
+            Element line = doc.getDefaultRootElement().getElement(0);
+            LongLineView view = (LongLineView) lineView(pane, 0);
+
+            for (int step = 0; step < 300; step++) {
+                int length = line.getEndOffset() - line.getStartOffset();
+                // Stay between the limit and twice it, so the view is kept
+                boolean insert = length < LONG + 1000 || (length < 2 * LONG && random.nextBoolean());
+                int at = random.nextInt(length - 1);
+                if (insert) {
+                    int size = random.nextInt(8) == 0 ? 1 + random.nextInt(3000) : 1 + random.nextInt(20);
+                    doc.insertString(at, letters(random, size), null);
+                } else {
+                    doc.remove(at, Math.min(1 + random.nextInt(2000), length - 1 - at));
+                }
+
+                assertSame(view, lineView(pane, 0), "view replaced at step " + step);
+                int[] segments = view.segmentLengths();
+                assertEquals(line.getEndOffset() - line.getStartOffset(), sum(segments), "step " + step);
+                for (int segment : segments) {
+                    assertTrue(segment > 0 && segment <= 2 * LongLineView.SEGMENT_CHARS,
+                               "segment of " + segment + " at step " + step);
+                }
+            }
+        });
+    }
+
+    @Test
+    void segmentBoundariesRoundTrip() throws Exception {
+        onEdt(() -> {
+            Random random = new Random(5);
+            JTextPane pane = pane(letters(random, 3 * LONG) + "\n");
+            Document doc = pane.getDocument();
+            LongLineView view = (LongLineView) lineView(pane, 0);
+            // Uneven segments
+            for (int i = 0; i < 40; i++) {
+                doc.insertString(random.nextInt(doc.getLength()), letters(random, random.nextInt(700)), null);
+                doc.remove(random.nextInt(doc.getLength() - 500), random.nextInt(500));
+            }
+
+            int boundary = 0;
+            for (int segment : view.segmentLengths()) {
+                boundary += segment;
+                int p = Math.min(boundary, doc.getLength());
+                for (int pos : new int[] { p - 1, p }) {
+                    Rectangle2D at = pane.modelToView2D(pos);
+                    int back = pane.viewToModel2D(new Point2D.Double(at.getX(), at.getCenterY()));
+                    assertEquals(pos, back, "boundary " + boundary);
+                }
+            }
+        });
+    }
+
+    @Test
+    void swapsAtTheLimitAndBackAtHalf() throws Exception {
+        onEdt(() -> {
+            // The line's length counts its newline
+            JTextPane pane = pane(letters(new Random(3), LONG - 1) + "\nshort\n");
+            Document doc = pane.getDocument();
+            assertFalse(lineView(pane, 0) instanceof LongLineView);
+
+            doc.insertString(0, "x", null);
+            assertTrue(lineView(pane, 0) instanceof LongLineView);
+
+            // Shrinking below the limit keeps it unwrapped down to half
+            doc.remove(0, LONG / 2);
+            assertEquals(LONG / 2 + 1, doc.getDefaultRootElement().getElement(0).getEndOffset());
+            assertTrue(lineView(pane, 0) instanceof LongLineView);
+
+            doc.remove(0, 1);
+            assertFalse(lineView(pane, 0) instanceof LongLineView);
+            // The other line never changes
+            assertFalse(lineView(pane, 1) instanceof LongLineView);
+
+            doc.insertString(0, "x", null);
+            assertFalse(lineView(pane, 0) instanceof LongLineView);
+        });
+    }
+}
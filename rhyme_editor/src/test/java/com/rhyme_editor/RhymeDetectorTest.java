@@ -0,0 +1,96 @@
+package com.rhyme_editor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the parallel ending table is identical to the sequential one,
+ * including the order of endings and of the words within each.
+ */
+class RhymeDetectorTest {
+
+    private static final String[] WORDS = {
+        "night", "Light", "bright", "fire", "higher", "don't", "rain", "again", "the", "and",
+        "caf\u00e9", "stay", "away", "heart", "apart", "x", "we're", "dream", "seem"
+    };
+    // Over four leaf sizes, so the text is split at several levels
+    private static final int LARGE = 600 * 1024;
+
+    private final RhymeDetector detector = new RhymeDetector();
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void shutDown() {
+        pool.shutdown();
+    }
+
+    private void assertSameAsSequential(String text) {
+        Map<String, List<String>> sequential = detector.collectEndingsSequential(text);
+        Map<String, List<String>> parallel = detector.collectEndings(text, pool);
+        assertEquals(new ArrayList<>(sequential.entrySet()), new ArrayList<>(parallel.entrySet()));
+    }
+
+    private static String text(Random random, int length, String separators) {
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            text.append(separators.charAt(random.nextInt(separators.length())));
+        }
+        return text.toString();
+    }
+
+    @Test
+    void randomLargeTextsMatch() {
+        Random random = new Random(1);
+        for (int i = 0; i < 5; i++) {
+            assertSameAsSequential(text(random, LARGE + random.nextInt(100_000), "    \n\n,.!?\t\r"));
+        }
+    }
+
+    @Test
+    void textWithoutWhitespaceMatches() {
+        // Cannot be split at all; "words" are joined across the punctuation
+        assertSameAsSequential(text(new Random(2), LARGE, ",.-!?'\u00a0"));
+    }
+
+    @Test
+    void splitsNextToNonBreakingSpaceAndPunctuationMatch() {
+        // Whitespace is rare, so the midpoints land inside runs of words joined
+        // by no-break spaces and punctuation, which must not be split
+        Random random = new Random(3);
+        for (int i = 0; i < 5; i++) {
+            StringBuilder text = new StringBuilder();
+            while (text.length() < LARGE) {
+                text.append(text(random, 2000 + random.nextInt(5000), "\u00a0\u00a0,.-\u2014"));
+                text.append(random.nextBoolean() ? ' ' : '\n');
+            }
+            assertSameAsSequential(text.toString());
+        }
+    }
+
+    @Test
+    void smallAndEmptyTextsMatch() {
+        assertSameAsSequential("");
+        assertSameAsSequential("night light");
+    }
+
+    @Test
+    void mergingPiecesKeepsFirstAppearanceOrder() {
+        String first = "the night was bright and the rain came again\n";
+        String second = "bright light, rain and night again, a fight\n";
+        Map<String, List<String>> merged = detector.collectEndingsSequential(first);
+        detector.mergeEndings(merged, detector.collectEndingsSequential(second));
+
+        Map<String, List<String>> whole = detector.collectEndingsSequential(first + second);
+        assertEquals(new ArrayList<>(whole.entrySet()), new ArrayList<>(merged.entrySet()));
+        assertEquals(List.of("night", "bright", "light", "fight"), merged.get(detector.getPhoneticEnding("night")));
+    }
+}
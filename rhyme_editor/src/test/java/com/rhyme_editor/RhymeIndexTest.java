@@ -0,0 +1,120 @@
+package com.rhyme_editor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class RhymeIndexTest {
+
+    private static final long BUDGET = 1_000_000_000L;
+
+    private final RhymeIndex index = new RhymeIndex(new RhymeDetector());
+
+    private static Map<String, List<String>> document(String... words) {
+        return Collections.singletonMap("any", Arrays.asList(words));
+    }
+
+    @Test
+    void findsBundledRhymes() {
+        List<String> rhymes = index.findRhymes("night", "", 100, BUDGET);
+        assertTrue(rhymes.contains("light"));
+        assertTrue(rhymes.contains("bright"));
+        assertFalse(rhymes.contains("night"));
+    }
+
+    @Test
+    void filtersByPrefixIgnoringCase() {
+        assertEquals(List.of("bright"), index.findRhymes("Night", "BR", 100, BUDGET));
+    }
+
+    @Test
+    void ordersDocumentBeforeBundledAndPerfectBeforeNear() {
+        index.updateDocument(document("moonlight", "thought"));
+        List<String> rhymes = index.findRhymes("night", "", 100, BUDGET);
+
+        // "thought" only shares the last two letters of "ight"
+        int moonlight = rhymes.indexOf("moonlight");
+        int light = rhymes.indexOf("light");
+        int thought = rhymes.indexOf("thought");
+        assertTrue(moonlight >= 0 && light >= 0 && thought >= 0, rhymes.toString());
+        assertTrue(moonlight < light, rhymes.toString());
+        assertTrue(light < thought, rhymes.toString());
+    }
+
+    @Test
+    void wordsLeavingTheDocumentAreNoLongerSuggested() {
+        index.updateDocument(document("moonlight"));
+        assertTrue(index.findRhymes("night", "moon", 10, BUDGET).contains("moonlight"));
+
+        index.updateDocument(document());
+        assertTrue(index.findRhymes("night", "moon", 10, BUDGET).isEmpty());
+        // Bundled words stay even if they leave the document
+        index.updateDocument(document("light"));
+        index.updateDocument(document());
+        assertTrue(index.findRhymes("night", "", 100, BUDGET).contains("light"));
+    }
+
+    @Test
+    void respectsLimit() {
+        assertEquals(3, index.findRhymes("night", "", 3, BUDGET).size());
+    }
+
+    @Test
+    void clearDocumentDropsDocumentWords() {
+        index.updateDocument(document("moonlight", "starlight", "thought"));
+        assertEquals(3, index.getDocumentWordCount());
+
+        index.clearDocument();
+        assertEquals(0, index.getDocumentWordCount());
+        assertTrue(index.findRhymes("night", "", 100, BUDGET).contains("light"));
+        assertFalse(index.findRhymes("night", "", 100, BUDGET).contains("moonlight"));
+    }
+
+    @Test
+    void wordsThatLeftTheDocumentArePrunedOnceTheyDominate() {
+        index.updateDocument(document(words("old", 1000)));
+        assertEquals(1000, index.getDocumentWordCount());
+
+        // 1000 dead words against 600 live ones: kept for now
+        index.updateDocument(document(words("new", 600)));
+        assertEquals(1600, index.getDocumentWordCount());
+
+        // Returning words are live again, not dead
+        List<String> mixed = new ArrayList<>(Arrays.asList(words("new", 600)));
+        mixed.addAll(Arrays.asList(words("old", 500)));
+        index.updateDocument(document(mixed.toArray(new String[0])));
+        assertEquals(1600, index.getDocumentWordCount());
+
+        // 1090 dead words against 10 live ones: rebuilt
+        index.updateDocument(document(words("new", 10)));
+        assertEquals(10, index.getDocumentWordCount());
+        List<String> rhymes = index.findRhymes("night", "", 100, BUDGET);
+        assertTrue(rhymes.contains("newaabnight"), rhymes.toString());
+        assertTrue(rhymes.contains("light"), rhymes.toString());
+        assertFalse(index.findRhymes("night", "old", 100, BUDGET).contains("oldaabnight"));
+    }
+
+    /** Distinct words rhyming with "night": prefix, three letters, "night". */
+    private static String[] words(String prefix, int count) {
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            words[i] = prefix + (char) ('a' + i / 676 % 26) + (char) ('a' + i / 26 % 26) + (char) ('a' + i % 26)
+                       + "night";
+        }
+        return words;
+    }
+
+    @Test
+    void wordsWithoutUsableEndingFindNothing() {
+        assertTrue(index.findRhymes("a", "", 10, BUDGET).isEmpty());
+        assertTrue(index.findRhymes(null, "", 10, BUDGET).isEmpty());
+    }
+}
@@ -0,0 +1,193 @@
+package com.rhyme_editor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.Segment;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RhymeSchemeAnalyzerTest {
+
+    private final RhymeSchemeAnalyzer analyzer = new RhymeSchemeAnalyzer(new RhymeDetector());
+    private final CountingDocument doc = new CountingDocument();
+
+    /** Counts text reads, to show what an edit costs. */
+    private static final class CountingDocument extends PlainDocument {
+        private static final long serialVersionUID = 1L;
+        int reads;
+
+        @Override
+        public String getText(int offset, int length) throws BadLocationException {
+            reads++;
+            return super.getText(offset, length);
+        }
+
+        @Override
+        public void getText(int offset, int length, Segment txt) throws BadLocationException {
+            reads++;
+            super.getText(offset, length, txt);
+        }
+    }
+
+    @BeforeEach
+    void forwardEdits() {
+        doc.addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                analyzer.documentChanged(e);
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                analyzer.documentChanged(e);
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+    }
+
+    private void insert(int offset, String text) throws BadLocationException {
+        doc.insertString(offset, text, null);
+    }
+
+    private String letters(int from, int to) {
+        StringBuilder letters = new StringBuilder();
+        for (int line = from; line < to; line++) {
+            char letter = analyzer.letterForLine(doc, line);
+            letters.append(letter == 0 ? '.' : letter);
+        }
+        return letters.toString();
+    }
+
+    private static String alternating(int lines) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            text.append(i % 2 == 0 ? "into the night\n" : "out in the rain\n");
+        }
+        return text.toString();
+    }
+
+    private int lineStart(int line) {
+        return doc.getDefaultRootElement().getElement(line).getStartOffset();
+    }
+
+    @Test
+    void lettersStanzasSeparately() throws BadLocationException {
+        insert(0, "the night\nthe rain\nso bright\nagain\n\nthe fire\na wire\n");
+        assertEquals("ABAB.AA.", letters(0, 8));
+        assertEquals("ABAB", analyzer.schemeForLine(doc, 2));
+        assertEquals("", analyzer.schemeForLine(doc, 4));
+    }
+
+    @Test
+    void longStanzasUseBlocksFromTheirStart() throws BadLocationException {
+        insert(0, alternating(150));
+        // Painting from the middle must give the same letters as from the top
+        String middleFirst = letters(60, 70);
+        analyzer.clearCache();
+        letters(0, 150);
+        assertEquals(middleFirst, letters(60, 70));
+        assertEquals("ABABABABAB", middleFirst);
+        // The last block holds lines 128 to 149
+        assertEquals(22, analyzer.schemeForLine(doc, 149).length());
+    }
+
+    @Test
+    void editWithinLineRelettersItsBlock() throws BadLocationException {
+        insert(0, "the night\nthe rain\nso bright\nagain\n");
+        assertEquals("ABAB", letters(0, 4));
+
+        // "bright" -> "brain"
+        int offset = lineStart(2) + "so br".length();
+        doc.remove(offset, "ight".length());
+        insert(offset, "ain");
+        assertEquals("ABBB", letters(0, 4));
+    }
+
+    @Test
+    void insertedLineShiftsLaterBlocks() throws BadLocationException {
+        insert(0, alternating(130));
+        assertEquals("AB", letters(64, 66));
+
+        insert(lineStart(10), "one more line\n");
+        // Line 64 is now an old odd line ("rain"), the first of the second block
+        assertEquals("AB", letters(64, 66));
+        assertEquals("BCAB", letters(9, 13));
+    }
+
+    @Test
+    void fillingABlankLineJoinsStanzas() throws BadLocationException {
+        insert(0, "the night\nthe rain\n\nso bright\nagain\n");
+        assertEquals("AB.AB", letters(0, 5));
+
+        insert(lineStart(2), "a stone");
+        assertEquals("ABCAB", letters(0, 5));
+
+        doc.remove(lineStart(2), "a stone".length());
+        assertEquals("AB.AB", letters(0, 5));
+    }
+
+    @Test
+    void randomEditsMatchAFreshAnalysis() throws BadLocationException {
+        String[] pieces = { "the night", "the rain", "\n", "\n\n", "so bright", " fire", "wire\n", "again\n" };
+        Random random = new Random(7);
+        insert(0, alternating(150));
+        for (int step = 0; step < 300; step++) {
+            int offset = random.nextInt(doc.getLength() + 1);
+            if (random.nextInt(3) == 0 && doc.getLength() > 0) {
+                doc.remove(offset, Math.min(random.nextInt(40), doc.getLength() - offset));
+            } else {
+                insert(offset, pieces[random.nextInt(pieces.length)]);
+            }
+
+            int lines = doc.getDefaultRootElement().getElementCount();
+            // Look at a window around the edit and one far away, as painting would
+            int near = doc.getDefaultRootElement().getElementIndex(offset);
+            int far = random.nextInt(lines);
+            String cached = letters(Math.max(0, near - 70), Math.min(lines, near + 70))
+                + letters(far, Math.min(lines, far + 10));
+
+            RhymeSchemeAnalyzer fresh = new RhymeSchemeAnalyzer(new RhymeDetector());
+            StringBuilder expected = new StringBuilder();
+            for (int[] range : new int[][] { { Math.max(0, near - 70), Math.min(lines, near + 70) },
+                                             { far, Math.min(lines, far + 10) } }) {
+                for (int line = range[0]; line < range[1]; line++) {
+                    char letter = fresh.letterForLine(doc, line);
+                    expected.append(letter == 0 ? '.' : letter);
+                }
+            }
+            assertEquals(expected.toString(), cached, "step " + step);
+        }
+    }
+
+    @Test
+    void editCostDoesNotGrowWithTheStanza() throws BadLocationException {
+        // One 20k-line stanza: no blank line to stop a walk
+        insert(0, alternating(20_000));
+        letters(0, 40);
+        letters(19_000, 19_040);
+
+        for (int i = 0; i < 50; i++) {
+            doc.reads = 0;
+            insert(lineStart(10), "a new line\n");
+            letters(0, 40);
+            assertTrue(doc.reads < 3 * RhymeSchemeAnalyzer.BLOCK_LINES, "reads: " + doc.reads);
+
+            doc.reads = 0;
+            doc.remove(lineStart(10), "a new line\n".length());
+            letters(0, 40);
+            assertTrue(doc.reads < 3 * RhymeSchemeAnalyzer.BLOCK_LINES, "reads: " + doc.reads);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.rhyme_editor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class RhymeServerTest {
+
+    private static final int MAX_BODY_BYTES = 8 * 1024 * 1024;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private RhymeServer server;
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) server.stop();
+    }
+
+    private RhymeServer start(int maxInFlight) throws Exception {
+        server = new RhymeServer(0, maxInFlight);
+        server.start();
+        return server;
+    }
+
+    private HttpResponse<String> post(String body) throws Exception {
+        return post(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private HttpResponse<String> post(HttpRequest.BodyPublisher body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + server.getPort() + "/rhymes/batch"))
+            .POST(body)
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /** Sends request headers, and no body yet, over a raw connection. */
+    private Socket openBatch(long contentLength) throws Exception {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        OutputStream out = socket.getOutputStream();
+        out.write(("POST /rhymes/batch HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + contentLength
+                   + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return socket;
+    }
+
+    private static String statusLine(Socket socket) throws Exception {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))
+            .readLine();
+    }
+
+    @Test
+    void parsesArrayAndObjectBodies() {
+        assertEquals(List.of("a", "b\nc"), RhymeServer.parseTexts(" [\"a\", \"b\\nc\"] "));
+        assertEquals(List.of("a"), RhymeServer.parseTexts("{ \"texts\" : [\"a\"] }"));
+        assertEquals(List.of(), RhymeServer.parseTexts("[]"));
+    }
+
+    @Test
+    void decodesEscapes() {
+        assertEquals(List.of("\"\\/\b\f\n\r\t"),
+                     RhymeServer.parseTexts("[\"\\\"\\\\\\/\\b\\f\\n\\r\\t\"]"));
+        assertEquals(List.of("caf\u00e9 \u00c9"), RhymeServer.parseTexts("[\"caf\\u00e9 \\u00C9\"]"));
+    }
+
+    @Test
+    void rejectsMalformedBodies() {
+        String[] bodies = {
+            "{\"texts\":[\"a\"],}",
+            "{\"texts\":[\"a\"] \"texts\":[\"b\"]}",
+            "[\"a\",]",
+            "{}",
+            "{\"other\":[]}",
+            "[\"a\"] x",
+            "[\"a\""
+        };
+        for (String body : bodies) {
+            assertThrows(IllegalArgumentException.class, () -> RhymeServer.parseTexts(body), body);
+        }
+    }
+
+    @Test
+    void rejectsBadEscapes() {
+        String[] bodies = {
+            // Integer.parseInt accepts a sign
+            "[\"\\u+041\"]",
+            "[\"\\u-041\"]",
+            "[\"\\u00e\"]",
+            "[\"\\u00\"]",
+            "[\"\\u00g1\"]",
+            "[\"\\x41\"]",
+            "[\"\\a\"]",
+            "[\"\\"
+        };
+        for (String body : bodies) {
+            assertThrows(IllegalArgumentException.class, () -> RhymeServer.parseTexts(body), body);
+        }
+    }
+
+    @Test
+    void analysesABatch() throws Exception {
+        start(4);
+        HttpResponse<String> response = post("[\"night light\", \"rain\"]");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("[{"), response.body());
+        assertTrue(response.body().contains("\"night\""), response.body());
+
+        assertEquals(400, post("[\"\\u+041\"]").statusCode());
+    }
+
+    @Test
+    void tooManyTextsGet413() throws Exception {
+        start(4);
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i <= 1000; i++) {
+            body.append(i > 0 ? "," : "").append("\"a\"");
+        }
+        body.append(']');
+
+        assertEquals(413, post(body.toString()).statusCode());
+    }
+
+    @Test
+    void oversizeBodiesGet413() throws Exception {
+        start(4);
+        // Refused from the declared length, before any of the body is read
+        try (Socket socket = openBatch(MAX_BODY_BYTES + 1L)) {
+            assertEquals("HTTP/1.1 413 Request Entity Too Large", statusLine(socket));
+        }
+
+        // Sent without a length, the body is cut off as it is read
+        byte[] body = new byte[MAX_BODY_BYTES + 1];
+        HttpResponse<String> response = post(HttpRequest.BodyPublishers.fromPublisher(
+            HttpRequest.BodyPublishers.ofByteArray(body)));
+        assertEquals(413, response.statusCode());
+    }
+
+    @Test
+    void saturatedServerGets503WithRetryAfter() throws Exception {
+        start(1);
+        String body = "[\"night\"]";
+        // Holds the only permit while its body is outstanding
+        try (Socket slow = openBatch(body.length())) {
+            HttpResponse<String> response = post(body);
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (response.statusCode() == 200 && System.nanoTime() < deadline) {
+                // The slow request has not reached the handler yet
+                Thread.sleep(10);
+                response = post(body);
+            }
+            assertEquals(503, response.statusCode());
+            assertEquals("1", response.headers().firstValue("Retry-After").orElse(null));
+
+            slow.getOutputStream().write(body.getBytes(StandardCharsets.US_ASCII));
+            slow.getOutputStream().flush();
+            assertEquals("HTTP/1.1 200 OK", statusLine(slow));
+        }
+        assertEquals(200, post(body).statusCode());
+    }
+}
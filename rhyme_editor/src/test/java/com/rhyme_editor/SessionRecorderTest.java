@@ -0,0 +1,132 @@
+package com.rhyme_editor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SessionRecorderTest {
+
+    @TempDir
+    Path dir;
+
+    private static Document document(String text) throws Exception {
+        Document doc = new PlainDocument();
+        doc.insertString(0, text, null);
+        return doc;
+    }
+
+    private static String replay(List<SessionRecorder.Event> events) throws Exception {
+        Document doc = new PlainDocument();
+        for (SessionRecorder.Event event : events) {
+            SessionReplay.applyEdit(doc, event);
+        }
+        return doc.getText(0, doc.getLength());
+    }
+
+    @Test
+    void scriptedEditsReplayToTheSameText() throws Exception {
+        Document doc = document("into the night\n");
+        Path trace = dir.resolve("session.trace");
+        SessionRecorder recorder = new SessionRecorder(doc, trace);
+
+        doc.insertString(doc.getLength(), "out in the rain\n", null);
+        doc.remove(0, 5);
+        doc.insertString(0, "Into\tthe\\night ", null);
+        doc.insertString(doc.getLength(), "a line with \\n in it\r\n", null);
+        doc.remove(doc.getLength() - 3, 3);
+        doc.insertString(4, "caf\u00e9 \u2014 ", null);
+        assertNull(recorder.stop());
+
+        List<SessionRecorder.Event> events = SessionRecorder.read(trace);
+        // The starting text and six edits
+        assertEquals(7, events.size());
+        assertEquals(0, events.get(0).timeNanos);
+        assertEquals("into the night\n", events.get(0).text);
+        assertFalse(events.get(2).insert);
+        assertEquals(5, events.get(2).length);
+        assertEquals(doc.getText(0, doc.getLength()), replay(events));
+    }
+
+    @Test
+    void randomEditsReplayToTheSameText() throws Exception {
+        Random random = new Random(7);
+        Document doc = document("");
+        Path trace = dir.resolve("random.trace");
+        SessionRecorder recorder = new SessionRecorder(doc, trace);
+
+        String alphabet = "abc \n\t\\'";
+        int edits = 0;
+        for (int i = 0; i < 500; i++) {
+            int length = doc.getLength();
+            if (length > 0 && random.nextInt(3) == 0) {
+                int offset = random.nextInt(length);
+                doc.remove(offset, 1 + random.nextInt(Math.min(8, length - offset)));
+            } else {
+                StringBuilder text = new StringBuilder();
+                for (int j = 1 + random.nextInt(6); j > 0; j--) {
+                    text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                doc.insertString(random.nextInt(length + 1), text.toString(), null);
+            }
+            edits++;
+        }
+        assertNull(recorder.stop());
+
+        List<SessionRecorder.Event> events = SessionRecorder.read(trace);
+        assertEquals(edits, events.size());
+        long previous = 0;
+        for (SessionRecorder.Event event : events) {
+            assertTrue(event.timeNanos >= previous);
+            previous = event.timeNanos;
+        }
+        assertEquals(doc.getText(0, doc.getLength()), replay(events));
+    }
+
+    @Test
+    void stoppedRecorderIgnoresLaterEdits() throws Exception {
+        Document doc = document("night");
+        Path trace = dir.resolve("stopped.trace");
+        SessionRecorder recorder = new SessionRecorder(doc, trace);
+        doc.insertString(5, " light", null);
+        recorder.stop();
+        doc.insertString(0, "ignored ", null);
+
+        assertEquals("night light", replay(SessionRecorder.read(trace)));
+    }
+
+    @Test
+    void malformedLinesAreRejected() throws Exception {
+        String[] malformed = {
+            "abc I 0 night",
+            "10 X 0 night",
+            "10 R 3",
+            "10 R 3 three",
+            "10 I",
+            "10",
+            "10 I -1 night",
+            "10 R 0 -2",
+        };
+        for (String line : malformed) {
+            Path trace = dir.resolve("malformed.trace");
+            Files.write(trace, ("# rhyme_editor session v1\n0 I 0 night\n" + line + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+            IOException error = assertThrows(IOException.class, () -> SessionRecorder.read(trace), line);
+            assertTrue(error.getMessage().contains("line 3"), line + ": " + error.getMessage());
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.rhyme_editor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SongbookIndexTest {
+
+    private final RhymeDetector detector = new RhymeDetector();
+    private final List<SongbookIndex> opened = new ArrayList<>();
+
+    @TempDir
+    Path root;
+
+    @AfterEach
+    void closeIndexes() {
+        opened.forEach(SongbookIndex::close);
+    }
+
+    private SongbookIndex open() throws IOException {
+        SongbookIndex index = SongbookIndex.open(root, detector);
+        opened.add(index);
+        return index;
+    }
+
+    private Path song(String name, String text) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, text.getBytes());
+        return file;
+    }
+
+    private static List<String> hits(SongbookIndex index, String word) {
+        List<String> hits = new ArrayList<>();
+        for (SongbookIndex.Hit hit : index.findRhymes(word, 1000)) {
+            hits.add(hit.file.getFileName() + "@" + hit.offset);
+        }
+        return hits;
+    }
+
+    @Test
+    void findsRhymesWithTheirOffsets() throws Exception {
+        song("a.txt", "into the night\nout in the rain\n");
+        song("sub/b.txt", "so bright\n");
+        SongbookIndex index = open();
+        assertEquals(2, index.indexFolder().get());
+
+        assertEquals(List.of("a.txt@9", "b.txt@3"), hits(index, "light"));
+        assertEquals(List.of("a.txt@26"), hits(index, "again"));
+        assertEquals(2, index.getSongCount());
+    }
+
+    @Test
+    void largeOffsetsAndManySongsSurviveVarintEncoding() throws Exception {
+        // Offsets past one, two and three varint bytes, in one song
+        StringBuilder text = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int target : new int[] { 100, 200, 20_000, 3_000_000 }) {
+            while (text.length() < target) text.append("la ");
+            expected.add("big.txt@" + text.length());
+            text.append("night ");
+        }
+        song("big.txt", text.toString());
+        // Enough songs that the song delta needs two bytes too
+        for (int i = 0; i < 200; i++) {
+            song(String.format("s%03d.txt", i), "la la\n");
+        }
+        song("z.txt", "light");
+        expected.add("z.txt@0");
+
+        SongbookIndex index = open();
+        index.indexFolder().get();
+        assertEquals(expected, hits(index, "bright"));
+
+        // Decoding the mapped file afresh gives the same postings
+        assertEquals(expected, hits(open(), "bright"));
+    }
+
+    @Test
+    void savedSongShadowsItsOlderCopy() throws Exception {
+        Path file = song("a.txt", "night\n");
+        SongbookIndex index = open();
+        index.indexFolder().get();
+
+        Files.write(file, "rain\n".getBytes());
+        index.updateFile(file, "rain\n");
+        // Runs after the update on the index's one writer thread
+        assertEquals(0, index.indexFolder().get());
+
+        assertEquals(List.of(), hits(index, "light"));
+        assertEquals(List.of("a.txt@0"), hits(index, "again"));
+        assertEquals(2, index.getSegmentCount());
+        // The shadowed copy is not counted
+        assertEquals(0, index.countRhymes("light"));
+        assertEquals(1, index.countRhymes("again"));
+    }
+
+    @Test
+    void deletedSongsAreForgotten() throws Exception {
+        Path file = song("a.txt", "night\n");
+        song("b.txt", "light\n");
+        SongbookIndex index = open();
+        index.indexFolder().get();
+
+        Files.delete(file);
+        index.indexFolder().get();
+        assertEquals(List.of("b.txt@0"), hits(index, "bright"));
+        assertEquals(1, index.getSongCount());
+    }
+
+    @Test
+    void aFullTierIsMergedIntoOne() throws Exception {
+        Path file = song("a.txt", "night 0\n");
+        song("b.txt", "light\n");
+        SongbookIndex index = open();
+        index.indexFolder().get();
+
+        for (int i = 1; i <= 10; i++) {
+            String text = "la la night " + i + "\n";
+            Files.write(file, text.getBytes());
+            index.updateFile(file, text);
+        }
+        index.indexFolder().get();
+
+        // Eleven small segments were written; the eighth filled the tier
+        assertEquals(4, index.getSegmentCount());
+        // The merged segment comes first, then the saves after it
+        assertEquals(List.of("b.txt@0", "a.txt@6"), hits(index, "bright"));
+        assertEquals(List.of("b.txt@0", "a.txt@6"), hits(open(), "bright"));
+        assertEquals(2, index.countRhymes("bright"));
+    }
+
+    @Test
+    void savesDoNotRewriteALargeSegment() throws Exception {
+        Path file = largeSongbook();
+        SongbookIndex index = open();
+        index.indexFolder().get();
+        List<String> manifest = manifest();
+        assertEquals(1, manifest.size());
+
+        for (int i = 1; i <= 10; i++) {
+            String text = "la la rain " + i + "\n";
+            Files.write(file, text.getBytes());
+            index.updateFile(file, text);
+        }
+        index.indexFolder().get();
+
+        // The small saves merged among themselves, after the large segment
+        assertEquals(manifest.get(0), manifest().get(0));
+        assertEquals(4, index.getSegmentCount());
+        assertEquals(List.of("a.txt@6"), hits(open(), "again"));
+        assertEquals(1, index.countRhymes("again"));
+        // Two per song in the large segment; a.txt's first copy is shadowed
+        assertEquals(2 * SONGS, index.countRhymes("night"));
+    }
+
+    @Test
+    void deletedFlagSurvivesAMergeThatLeavesTheOldCopy() throws Exception {
+        Path file = largeSongbook();
+        Path gone = root.resolve("s000.txt");
+        SongbookIndex index = open();
+        index.indexFolder().get();
+
+        Files.delete(gone);
+        index.indexFolder().get();
+        for (int i = 1; i <= 7; i++) {
+            index.updateFile(file, "la la night " + i + "\n");
+        }
+        index.indexFolder().get();
+
+        assertEquals(2, index.getSegmentCount());
+        for (SongbookIndex reader : List.of(index, open())) {
+            assertEquals(SONGS, reader.getSongCount());
+            assertFalse(hits(reader, "bright").contains("s000.txt@0"));
+        }
+    }
+
+    private static final int SONGS = 600;
+
+    /** Songs s000..s599 and a.txt, enough for a segment above the lowest tier. */
+    private Path largeSongbook() throws IOException {
+        for (int i = 0; i < SONGS; i++) {
+            song(String.format("s%03d.txt", i), "light in the morning, bright in the evening\n");
+        }
+        return song("a.txt", "night\n");
+    }
+
+    private List<String> manifest() throws IOException {
+        return Files.readAllLines(root.resolve(SongbookIndex.INDEX_DIRECTORY).resolve("segments"));
+    }
+
+    @Test
+    void onlyTextFilesOutsideTheIndexAreSongs() throws Exception {
+        song("a.txt", "night\n");
+        Path notes = song("notes.md", "light\n");
+        SongbookIndex index = open();
+        index.indexFolder().get();
+
+        assertTrue(index.isSong(root.resolve("a.txt")));
+        assertFalse(index.isSong(notes));
+        assertFalse(index.isSong(root.resolve(SongbookIndex.INDEX_DIRECTORY).resolve("x.txt")));
+        assertFalse(index.isSong(root.resolveSibling("elsewhere.txt")));
+
+        index.updateFile(notes, "light\n");
+        index.indexFolder().get();
+        assertEquals(List.of("a.txt@0"), hits(index, "bright"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.rhyme_editor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class SyllableCounterTest {
+
+    private final SyllableCounter counter = new SyllableCounter();
+
+    private void assertWords(int syllables, String... words) {
+        for (String word : words) {
+            assertEquals(syllables, counter.countWord(word), word);
+        }
+    }
+
+    @Test
+    void countsVowelRuns() {
+        assertWords(1, "night", "cat", "strength");
+        assertWords(2, "water", "yellow", "paper");
+        assertWords(3, "memory", "tomorrow");
+    }
+
+    @Test
+    void dropsSilentFinalE() {
+        assertWords(1, "fire", "stone", "whale", "the", "be");
+        assertWords(2, "became", "alone");
+    }
+
+    @Test
+    void keepsConsonantLeEndings() {
+        assertWords(2, "little", "table", "candle", "Apple");
+        assertWords(3, "terrible");
+    }
+
+    @Test
+    void countsDiphthongsOnce() {
+        assertWords(1, "rain", "boat", "day", "you", "eye");
+        assertWords(3, "beautiful");
+    }
+
+    @Test
+    void treatsApostrophesAsPartOfTheWord() {
+        assertWords(1, "don't", "you're", "I'm");
+        assertEquals(2, counter.countLine("rock'n'roll"));
+        assertEquals(3, counter.countLine("don't you're I'm"));
+    }
+
+    @Test
+    void countsAccentedVowels() {
+        // cafe, uber, resume and ETAGE with their accents
+        assertWords(2, "caf\u00e9", "\u00fcber");
+        assertWords(3, "r\u00e9sum\u00e9");
+        assertWords(2, "\u00c9TAGE");
+    }
+
+    @Test
+    void emptyAndBlankLinesHaveNoSyllables() {
+        assertEquals(0, counter.countLine(""));
+        assertEquals(0, counter.countLine("   \t "));
+        assertEquals(0, counter.countLine("123 -- !!"));
+        assertEquals(0, counter.countWord(""));
+    }
+
+    @Test
+    void countsEveryWordOfALine() {
+        assertEquals(4, counter.countLine("The little boat"));
+        assertEquals(7, counter.countLine("  Into the night, the fire burns!  "));
+    }
+
+    @Test
+    void unchangedLinesComeFromTheCache() {
+        String[] lines = { "into the night", "out in the rain", "a little fire", "into the night" };
+        for (String line : lines) {
+            counter.countLine(line);
+        }
+        // The repeated line shares one entry
+        assertEquals(3, counter.getCacheSize());
+
+        for (String line : lines) {
+            counter.countLine(line);
+        }
+        assertEquals(3, counter.getCacheSize());
+    }
+
+    @Test
+    void editedLinesAreRecounted() {
+        assertEquals(4, counter.countLine("out in the rain"));
+        assertEquals(1, counter.getCacheSize());
+
+        assertEquals(8, counter.countLine("out in the pouring rain again"));
+        assertEquals(2, counter.getCacheSize());
+        // The old content still has its own entry
+        assertEquals(4, counter.countLine("out in the rain"));
+        assertEquals(2, counter.getCacheSize());
+
+        counter.clearCache();
+        assertEquals(0, counter.getCacheSize());
+        assertEquals(4, counter.countLine("out in the rain"));
+    }
+}